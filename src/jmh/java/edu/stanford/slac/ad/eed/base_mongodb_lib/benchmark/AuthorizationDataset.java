@@ -0,0 +1,123 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.benchmark;
+
+import com.mongodb.client.MongoCollection;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.utility.InitAuthorizationIndex;
+import edu.stanford.slac.ad.eed.baselib.model.AuthenticationToken;
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.ad.eed.baselib.model.AuthorizationOwnerType;
+import edu.stanford.slac.ad.eed.baselib.model.LocalGroup;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generated authorizations, users and local groups.
+ * <p>
+ * The authorizations are assigned round-robin to all the users and groups, each user belongs to
+ * a fixed number of local groups, so the size of the inheritance grows with the groups per user.
+ */
+public class AuthorizationDataset {
+    private static final int BATCH_SIZE = 10000;
+    private static final int GROUP_COUNT = 1000;
+    private final List<String> users;
+    private final List<String> groupIds;
+
+    private AuthorizationDataset(List<String> users, List<String> groupIds) {
+        this.users = users;
+        this.groupIds = groupIds;
+    }
+
+    /**
+     * Drop the authorization collections and fill them with a new dataset
+     *
+     * @param mongoTemplate      the template
+     * @param authorizationCount the number of authorizations to generate
+     * @param groupsPerUser      the number of local groups of each user
+     * @return the generated dataset
+     */
+    public static AuthorizationDataset generate(MongoTemplate mongoTemplate, int authorizationCount, int groupsPerUser) {
+        mongoTemplate.dropCollection(Authorization.class);
+        mongoTemplate.dropCollection(LocalGroup.class);
+        mongoTemplate.dropCollection(AuthenticationToken.class);
+
+        int userCount = Math.max(100, authorizationCount / 100);
+        List<String> users = new ArrayList<>(userCount);
+        for (int idx = 0; idx < userCount; idx++) {
+            users.add("user%d@slac.stanford.edu".formatted(idx));
+        }
+
+        // local groups, user n belong to the groups from n to n + groupsPerUser
+        List<List<String>> members = new ArrayList<>(GROUP_COUNT);
+        for (int idx = 0; idx < GROUP_COUNT; idx++) {
+            members.add(new ArrayList<>());
+        }
+        for (int userIdx = 0; userIdx < userCount; userIdx++) {
+            for (int groupIdx = 0; groupIdx < groupsPerUser; groupIdx++) {
+                members.get((userIdx + groupIdx) % GROUP_COUNT).add(users.get(userIdx));
+            }
+        }
+        List<String> groupIds = new ArrayList<>(GROUP_COUNT);
+        List<Document> groups = new ArrayList<>(GROUP_COUNT);
+        Instant now = Instant.now();
+        for (int idx = 0; idx < GROUP_COUNT; idx++) {
+            ObjectId id = new ObjectId();
+            groupIds.add(id.toHexString());
+            groups.add(
+                    new Document("_id", id)
+                            .append("name", "group-%d".formatted(idx))
+                            .append("description", "benchmark group %d".formatted(idx))
+                            .append("members", members.get(idx))
+                            .append("createdDate", Date.from(now.plusMillis(idx)))
+            );
+        }
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(LocalGroup.class)).insertMany(groups);
+
+        // authorizations, round-robin on users and groups so each owner has distinct resources
+        MongoCollection<Document> authorizationCollection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Authorization.class));
+        Authorization.Type[] types = Authorization.Type.values();
+        int ownerCount = userCount + GROUP_COUNT;
+        List<Document> batch = new ArrayList<>(BATCH_SIZE);
+        for (int idx = 0; idx < authorizationCount; idx++) {
+            int ownerIdx = idx % ownerCount;
+            boolean isUser = ownerIdx < userCount;
+            batch.add(
+                    new Document("owner", isUser ? users.get(ownerIdx) : groupIds.get(ownerIdx - userCount))
+                            .append("ownerType", isUser ? AuthorizationOwnerType.User.name() : AuthorizationOwnerType.Group.name())
+                            .append("resource", "/r%d".formatted(idx / ownerCount))
+                            .append("authorizationType", types[idx % types.length].getValue())
+                            .append("creationBy", "benchmark")
+            );
+            if (batch.size() == BATCH_SIZE) {
+                authorizationCollection.insertMany(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            authorizationCollection.insertMany(batch);
+        }
+
+        // build the indexes once all the data are in place
+        new InitAuthorizationIndex(mongoTemplate).updateIndex();
+        return new AuthorizationDataset(users, groupIds);
+    }
+
+    /**
+     * @return a random user of the dataset
+     */
+    public String randomUser() {
+        return users.get(ThreadLocalRandom.current().nextInt(users.size()));
+    }
+
+    /**
+     * @return a random local group id of the dataset
+     */
+    public String randomGroupId() {
+        return groupIds.get(ThreadLocalRandom.current().nextInt(groupIds.size()));
+    }
+}
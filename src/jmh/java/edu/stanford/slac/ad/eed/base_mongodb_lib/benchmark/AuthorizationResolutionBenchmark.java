@@ -0,0 +1,78 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.benchmark;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.service.AuthServiceImpl;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO.Read;
+
+/**
+ * Permission resolution of {@link AuthServiceImpl} for a random user, with the inheritance from his groups
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AuthorizationResolutionBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    public int authorizationCount;
+    @Param({"1", "10", "100"})
+    public int groupsPerUser;
+
+    private ConfigurableApplicationContext context;
+    private AuthServiceImpl authService;
+    private AuthorizationDataset dataset;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start();
+        authService = context.getBean(AuthServiceImpl.class);
+        dataset = AuthorizationDataset.generate(context.getBean(MongoTemplate.class), authorizationCount, groupsPerUser);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<AuthorizationDTO> resolveAllWithInheritance() {
+        return authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(
+                dataset.randomUser(),
+                Read,
+                "/r",
+                Optional.of(false),
+                Optional.of(true)
+        );
+    }
+
+    @Benchmark
+    public List<AuthorizationDTO> resolveHigherWithInheritance() {
+        return authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(
+                dataset.randomUser(),
+                Read,
+                "/r",
+                Optional.of(true),
+                Optional.of(true)
+        );
+    }
+
+    @Benchmark
+    public boolean canManageGroup() {
+        return authService.canManageGroup(dataset.randomUser());
+    }
+}
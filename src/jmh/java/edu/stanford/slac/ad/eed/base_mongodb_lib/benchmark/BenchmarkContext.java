@@ -0,0 +1,32 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.benchmark;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.App;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.config.TestConfig;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Start the library with the test profile, so the benchmarks run against the mongodb
+ * of the docker compose and the embedded ldap, the same stand-in used by the tests.
+ * <p>
+ * The benchmarks drop the content of the collections they use.
+ */
+public final class BenchmarkContext {
+    private BenchmarkContext() {
+    }
+
+    /**
+     * Start the application context
+     *
+     * @param properties additional properties in the form name=value
+     * @return the started context
+     */
+    public static ConfigurableApplicationContext start(String... properties) {
+        return new SpringApplicationBuilder(App.class, TestConfig.class)
+                .profiles("test")
+                .properties("server.port=0")
+                .properties(properties)
+                .logStartupInfo(false)
+                .run();
+    }
+}
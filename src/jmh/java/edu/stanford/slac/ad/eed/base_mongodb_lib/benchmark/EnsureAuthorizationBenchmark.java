@@ -0,0 +1,74 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.benchmark;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.repository.AuthorizationRepository;
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.ad.eed.baselib.model.AuthorizationOwnerType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Upsert of {@link AuthorizationRepository#ensureAuthorization}, both on an already existing authorization
+ * and on a new one
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EnsureAuthorizationBenchmark {
+    @Param({"10000", "1000000"})
+    public int authorizationCount;
+
+    private ConfigurableApplicationContext context;
+    private AuthorizationRepository authorizationRepository;
+    private AuthorizationDataset dataset;
+    private final AtomicLong newResourceCounter = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start();
+        authorizationRepository = context.getBean(AuthorizationRepository.class);
+        dataset = AuthorizationDataset.generate(context.getBean(MongoTemplate.class), authorizationCount, 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String ensureExisting() {
+        // the resource 0 exists for all the users with the first authorization type of the round-robin
+        return authorizationRepository.ensureAuthorization(
+                Authorization.builder()
+                        .owner("user0@slac.stanford.edu")
+                        .ownerType(AuthorizationOwnerType.User)
+                        .resource("/r0")
+                        .authorizationType(Authorization.Type.values()[0].getValue())
+                        .build()
+        );
+    }
+
+    @Benchmark
+    public String ensureNew() {
+        return authorizationRepository.ensureAuthorization(
+                Authorization.builder()
+                        .owner(dataset.randomUser())
+                        .ownerType(AuthorizationOwnerType.User)
+                        .resource("/new/r%d".formatted(newResourceCounter.incrementAndGet()))
+                        .authorizationType(Authorization.Type.Write.getValue())
+                        .build()
+        );
+    }
+}
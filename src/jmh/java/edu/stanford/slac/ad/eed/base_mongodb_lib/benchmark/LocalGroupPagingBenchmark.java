@@ -0,0 +1,104 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.benchmark;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.repository.LocalGroupRepository;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.utility.InitAuthorizationIndex;
+import edu.stanford.slac.ad.eed.baselib.model.LocalGroup;
+import edu.stanford.slac.ad.eed.baselib.model.LocalGroupQueryParameter;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paging of {@link LocalGroupRepository#findAll(LocalGroupQueryParameter)} on the first page,
+ * around an anchor and with a full text search
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LocalGroupPagingBenchmark {
+    private static final int PAGE_SIZE = 20;
+    @Param({"1000", "100000"})
+    public int groupCount;
+
+    private ConfigurableApplicationContext context;
+    private LocalGroupRepository localGroupRepository;
+    private List<String> groupIds;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start();
+        localGroupRepository = context.getBean(LocalGroupRepository.class);
+        MongoTemplate mongoTemplate = context.getBean(MongoTemplate.class);
+        mongoTemplate.dropCollection(LocalGroup.class);
+
+        groupIds = new ArrayList<>(groupCount);
+        List<Document> groups = new ArrayList<>(groupCount);
+        Instant now = Instant.now();
+        for (int idx = 0; idx < groupCount; idx++) {
+            ObjectId id = new ObjectId();
+            groupIds.add(id.toHexString());
+            groups.add(
+                    new Document("_id", id)
+                            .append("name", "group-%d".formatted(idx))
+                            .append("description", "benchmark group %d".formatted(idx))
+                            .append("members", List.of("user%d@slac.stanford.edu".formatted(idx)))
+                            .append("createdDate", Date.from(now.plusMillis(idx)))
+            );
+        }
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(LocalGroup.class)).insertMany(groups);
+        new InitAuthorizationIndex(mongoTemplate).updateIndex();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<LocalGroup> firstPage() {
+        return localGroupRepository.findAll(
+                LocalGroupQueryParameter.builder()
+                        .limit(PAGE_SIZE)
+                        .build()
+        );
+    }
+
+    @Benchmark
+    public List<LocalGroup> pageAroundAnchor() {
+        return localGroupRepository.findAll(
+                LocalGroupQueryParameter.builder()
+                        .anchorID(groupIds.get(ThreadLocalRandom.current().nextInt(groupIds.size())))
+                        .contextSize(PAGE_SIZE / 2)
+                        .limit(PAGE_SIZE)
+                        .build()
+        );
+    }
+
+    @Benchmark
+    public List<LocalGroup> searchPage() {
+        return localGroupRepository.findAll(
+                LocalGroupQueryParameter.builder()
+                        .search("group-%d".formatted(ThreadLocalRandom.current().nextInt(groupCount)))
+                        .limit(PAGE_SIZE)
+                        .build()
+        );
+    }
+}
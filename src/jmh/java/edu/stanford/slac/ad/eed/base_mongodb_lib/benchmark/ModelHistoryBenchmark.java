@@ -0,0 +1,82 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.benchmark;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.model.TestChangeModelPrimitive;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.model.TestChangeModelPrimitiveRepository;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.ModelChangesHistoryDTO;
+import edu.stanford.slac.ad.eed.baselib.service.ModelHistoryService;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * History of a model, tracked by javers, with a growing number of commits
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ModelHistoryBenchmark {
+    @Param({"10", "100", "1000"})
+    public int changeCount;
+
+    private ConfigurableApplicationContext context;
+    private ModelHistoryService modelHistoryService;
+    private String modelId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start();
+        modelHistoryService = context.getBean(ModelHistoryService.class);
+        MongoTemplate mongoTemplate = context.getBean(MongoTemplate.class);
+        mongoTemplate.remove(new Query(), TestChangeModelPrimitive.class);
+        mongoTemplate.getDb().getCollection("jv_snapshots").deleteMany(new Document());
+        mongoTemplate.getDb().getCollection("jv_head_id").deleteMany(new Document());
+
+        TestChangeModelPrimitiveRepository repository = context.getBean(TestChangeModelPrimitiveRepository.class);
+        TestChangeModelPrimitive model = repository.save(
+                TestChangeModelPrimitive.builder()
+                        .stringField1("value-0")
+                        .intField1(0)
+                        .boolField1(false)
+                        .build()
+        );
+        for (int idx = 1; idx < changeCount; idx++) {
+            model = repository.save(
+                    model.toBuilder()
+                            .stringField1("value-%d".formatted(idx))
+                            .intField1(idx)
+                            .boolField1(idx % 2 == 0)
+                            .build()
+            );
+        }
+        modelId = model.getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ModelChangesHistoryDTO> findChangesByModelId() {
+        return modelHistoryService.findChangesByModelId(TestChangeModelPrimitive.class, modelId);
+    }
+
+    @Benchmark
+    public List<TestChangeModelPrimitive> findModelChangesByModelId() {
+        return modelHistoryService.findModelChangesByModelId(TestChangeModelPrimitive.class, modelId);
+    }
+}
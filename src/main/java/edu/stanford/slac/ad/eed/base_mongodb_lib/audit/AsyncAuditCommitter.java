@@ -0,0 +1,285 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.audit;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.config.MongoDBProperties;
+import lombok.extern.log4j.Log4j2;
+import org.bson.Document;
+import org.javers.core.Javers;
+import org.javers.core.metamodel.type.EntityType;
+import org.javers.core.metamodel.type.JaversType;
+import org.javers.repository.jql.InstanceIdDTO;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Commit to javers, from a background thread, the entities saved and deleted by the audited repositories.
+ * <p>
+ * The saves are drained from a bounded queue and the consecutive ones of the same author are committed
+ * together, as a list, so a batch cost one commit id instead of one for each entity. An entity is never
+ * committed twice in the same commit, to keep each of its versions. When the queue is full the repository
+ * calls wait for a free slot, and the queue is flushed before the shutdown of the application. A failed commit
+ * is retried, after a growing pause, up to the max attempts and then counted as failed.
+ * <p>
+ * The queue never hold the entities of the caller, that can change them after the repository call: a saved
+ * entity is copied, with a round trip through the mongodb document, and a deleted one is kept by its id.
+ */
+@Log4j2
+public class AsyncAuditCommitter implements DisposableBean {
+    private final Javers javers;
+    private final MongoConverter mongoConverter;
+    private static final Duration RETRY_DELAY = Duration.ofMillis(100);
+    private final int batchSize;
+    private final int maxCommitAttempts;
+    private final Duration shutdownTimeout;
+    private final BlockingQueue<AuditEntry> queue;
+    private final Thread committerThread;
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    // the changes not committed after all the attempts
+    private final AtomicLong failed = new AtomicLong();
+    private volatile boolean running = true;
+
+    public AsyncAuditCommitter(Javers javers, MongoConverter mongoConverter, MongoDBProperties.AsyncAuditProperties properties) {
+        this.javers = javers;
+        this.mongoConverter = mongoConverter;
+        this.batchSize = properties.getBatchSize();
+        this.maxCommitAttempts = Math.max(1, properties.getMaxCommitAttempts());
+        this.shutdownTimeout = properties.getShutdownTimeout();
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueSize());
+        this.committerThread = Thread.ofPlatform()
+                .name("javers-async-commit")
+                .daemon(true)
+                .start(this::commitLoop);
+        log.info("Javers commits are asynchronous, queue size {} and batch size {}", properties.getQueueSize(), batchSize);
+    }
+
+    /**
+     * Enqueue the commit of a saved entity, wait if the queue is full
+     *
+     * @param author the author of the change
+     * @param entity the saved entity
+     */
+    public void enqueueSave(String author, Object entity) {
+        enqueue(new AuditEntry(author, copy(entity), null));
+    }
+
+    /**
+     * Enqueue the commit of a deleted entity, wait if the queue is full
+     *
+     * @param author the author of the change
+     * @param entity the deleted entity
+     */
+    public void enqueueDelete(String author, Object entity) {
+        Object localId = getLocalId(entity);
+        if (localId == null) {
+            log.error("Javers commit of the delete of {} skipped, it is not an entity with an id", entity.getClass().getSimpleName());
+            return;
+        }
+        enqueueDeleteById(author, localId, entity.getClass());
+    }
+
+    /**
+     * Enqueue the commit of an entity deleted by id, wait if the queue is full
+     *
+     * @param author     the author of the change
+     * @param id         the id of the deleted entity
+     * @param domainType the class of the deleted entity
+     */
+    public void enqueueDeleteById(String author, Object id, Class<?> domainType) {
+        enqueue(new AuditEntry(author, null, InstanceIdDTO.instanceId(id, domainType)));
+    }
+
+    /**
+     * Return the number of changes not committed after all the attempts
+     */
+    public long getFailedCommits() {
+        return failed.get();
+    }
+
+    /**
+     * Wait until all the changes enqueued before the call are processed
+     *
+     * @param timeout the max time to wait
+     * @return true if all the changes have been committed, false on timeout or if a commit failed meanwhile
+     */
+    public boolean flush(Duration timeout) {
+        long failedBefore = failed.get();
+        long target = enqueued.get();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (processed.get() < target) {
+            if (System.nanoTime() > deadline) return false;
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return failed.get() == failedBefore;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        // the loop drain the queue before exit
+        running = false;
+        committerThread.join(shutdownTimeout.toMillis());
+        if (committerThread.isAlive()) {
+            log.error("{} javers commits not done at shutdown", queue.size());
+        }
+    }
+
+    private void enqueue(AuditEntry entry) {
+        try {
+            queue.put(entry);
+            enqueued.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Javers commit of {} lost, the thread has been interrupted", entry);
+        }
+    }
+
+    private void commitLoop() {
+        List<AuditEntry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditEntry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                processed.addAndGet(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Commit a batch keeping the order of the changes
+     */
+    private void commit(List<AuditEntry> batch) {
+        List<Object> saved = new ArrayList<>();
+        Set<String> savedIds = new HashSet<>();
+        String savedAuthor = null;
+        for (AuditEntry entry : batch) {
+            String entityId = entry.saved() != null ? getEntityId(entry.saved()) : null;
+            boolean canJoin = entityId != null &&
+                    (savedAuthor == null || savedAuthor.equals(entry.author())) &&
+                    !savedIds.contains(entityId);
+            if (!canJoin) {
+                commitSaved(savedAuthor, saved);
+                saved.clear();
+                savedIds.clear();
+                savedAuthor = null;
+            }
+            if (entityId != null) {
+                saved.add(entry.saved());
+                savedIds.add(entityId);
+                savedAuthor = entry.author();
+            } else {
+                commitAlone(entry);
+            }
+        }
+        commitSaved(savedAuthor, saved);
+    }
+
+    private void commitSaved(String author, List<Object> saved) {
+        if (saved.isEmpty()) return;
+        // a single commit for all the entities
+        Object toCommit = saved.size() == 1 ? saved.getFirst() : new ArrayList<>(saved);
+        if (!commitWithRetry("%d entities".formatted(saved.size()), () -> javers.commit(author, toCommit))) {
+            failed.addAndGet(saved.size());
+        }
+    }
+
+    private void commitAlone(AuditEntry entry) {
+        boolean committed = commitWithRetry(
+                entry.toString(),
+                () -> {
+                    if (entry.saved() != null) {
+                        javers.commit(entry.author(), entry.saved());
+                    } else {
+                        javers.commitShallowDeleteById(entry.author(), entry.deletedId());
+                    }
+                }
+        );
+        if (!committed) {
+            failed.incrementAndGet();
+        }
+    }
+
+    /**
+     * Execute a commit, retrying it after a failure up to the max attempts
+     *
+     * @param description the description of the committed changes
+     * @param commit      the commit
+     * @return true if the commit has been done
+     */
+    private boolean commitWithRetry(String description, Runnable commit) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                commit.run();
+                return true;
+            } catch (RuntimeException e) {
+                if (attempt >= maxCommitAttempts) {
+                    log.error("Error committing {} to javers after {} attempts", description, attempt, e);
+                    return false;
+                }
+                log.warn("Error committing {} to javers, attempt {} of {}: {}", description, attempt, maxCommitAttempts, e.toString());
+                try {
+                    Thread.sleep(RETRY_DELAY.multipliedBy(attempt));
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                    log.error("Error committing {} to javers, retry interrupted", description, e);
+                    return false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Return a copy of the entity with the state it has now
+     */
+    private Object copy(Object entity) {
+        Document document = new Document();
+        mongoConverter.write(entity, document);
+        return mongoConverter.read(entity.getClass(), document);
+    }
+
+    /**
+     * Return the unique id of an entity, null for the objects that are not entities
+     */
+    private String getEntityId(Object object) {
+        JaversType javersType = javers.getTypeMapping(object.getClass());
+        if (!(javersType instanceof EntityType entityType)) return null;
+        Object localId = entityType.getIdProperty().get(object);
+        return localId != null ? "%s/%s".formatted(entityType.getName(), localId) : null;
+    }
+
+    /**
+     * Return the id of an entity, null for the objects that are not entities
+     */
+    private Object getLocalId(Object object) {
+        JaversType javersType = javers.getTypeMapping(object.getClass());
+        if (!(javersType instanceof EntityType entityType)) return null;
+        return entityType.getIdProperty().get(object);
+    }
+
+    /**
+     * A change to commit, only one of saved and deletedId is set
+     */
+    private record AuditEntry(String author, Object saved, InstanceIdDTO deletedId) {
+    }
+}
@@ -0,0 +1,106 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.audit;
+
+import lombok.AllArgsConstructor;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.javers.spring.annotation.JaversSpringDataAuditable;
+import org.javers.spring.auditable.AuthorProvider;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.repository.core.support.AbstractRepositoryMetadata;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Replace the synchronous javers commits of the repositories annotated with {@link JaversSpringDataAuditable},
+ * the saved and deleted entities are enqueued to the {@link AsyncAuditCommitter}.
+ * The author is resolved on the thread of the repository call.
+ */
+@Aspect
+@AllArgsConstructor
+public class AsyncAuditRepositoryAspect {
+    private final AsyncAuditCommitter asyncAuditCommitter;
+    private final AuthorProvider authorProvider;
+    private final MongoTemplate mongoTemplate;
+
+    @AfterReturning(value = "execution(public * save(..)) && this(org.springframework.data.repository.CrudRepository)", returning = "saved")
+    public void onSave(JoinPoint joinPoint, Object saved) {
+        if (getAuditedRepository(joinPoint).isEmpty()) return;
+        asyncAuditCommitter.enqueueSave(authorProvider.provide(), saved);
+    }
+
+    @AfterReturning(value = "execution(public * saveAll(..)) && this(org.springframework.data.repository.CrudRepository)", returning = "saved")
+    public void onSaveAll(JoinPoint joinPoint, Iterable<?> saved) {
+        if (getAuditedRepository(joinPoint).isEmpty()) return;
+        String author = authorProvider.provide();
+        saved.forEach(entity -> asyncAuditCommitter.enqueueSave(author, entity));
+    }
+
+    @AfterReturning("execution(public * delete(..)) && this(org.springframework.data.repository.CrudRepository)")
+    public void onDelete(JoinPoint joinPoint) {
+        if (getAuditedRepository(joinPoint).isEmpty()) return;
+        asyncAuditCommitter.enqueueDelete(authorProvider.provide(), joinPoint.getArgs()[0]);
+    }
+
+    @AfterReturning("execution(public * deleteById(..)) && this(org.springframework.data.repository.CrudRepository)")
+    public void onDeleteById(JoinPoint joinPoint) {
+        Optional<Class<?>> repository = getAuditedRepository(joinPoint);
+        if (repository.isEmpty()) return;
+        asyncAuditCommitter.enqueueDeleteById(
+                authorProvider.provide(),
+                joinPoint.getArgs()[0],
+                AbstractRepositoryMetadata.getMetadata(repository.get()).getDomainType()
+        );
+    }
+
+    @AfterReturning("execution(public * deleteAll(java.lang.Iterable)) && this(org.springframework.data.repository.CrudRepository)")
+    public void onDeleteAllEntities(JoinPoint joinPoint) {
+        if (getAuditedRepository(joinPoint).isEmpty()) return;
+        String author = authorProvider.provide();
+        ((Iterable<?>) joinPoint.getArgs()[0]).forEach(entity -> asyncAuditCommitter.enqueueDelete(author, entity));
+    }
+
+    @AfterReturning("execution(public * deleteAllById(..)) && this(org.springframework.data.repository.CrudRepository)")
+    public void onDeleteAllById(JoinPoint joinPoint) {
+        Optional<Class<?>> repository = getAuditedRepository(joinPoint);
+        if (repository.isEmpty()) return;
+        String author = authorProvider.provide();
+        Class<?> domainType = AbstractRepositoryMetadata.getMetadata(repository.get()).getDomainType();
+        ((Iterable<?>) joinPoint.getArgs()[0]).forEach(id -> asyncAuditCommitter.enqueueDeleteById(author, id, domainType));
+    }
+
+    @Around("execution(public * deleteAll()) && this(org.springframework.data.repository.CrudRepository)")
+    public Object onDeleteAll(ProceedingJoinPoint joinPoint) throws Throwable {
+        Optional<Class<?>> repository = getAuditedRepository(joinPoint);
+        if (repository.isEmpty()) return joinPoint.proceed();
+        // the deleted entities are known only before the delete, only their ids are read
+        Class<?> domainType = AbstractRepositoryMetadata.getMetadata(repository.get()).getDomainType();
+        Query idQuery = new Query();
+        idQuery.fields().include("_id");
+        List<Object> deleted = new ArrayList<>();
+        try (Stream<?> ids = mongoTemplate.stream(idQuery, domainType)) {
+            ids.forEach(deleted::add);
+        }
+        Object result = joinPoint.proceed();
+        String author = authorProvider.provide();
+        deleted.forEach(entity -> asyncAuditCommitter.enqueueDelete(author, entity));
+        return result;
+    }
+
+    /**
+     * Return the repository interface annotated with {@link JaversSpringDataAuditable}, if any
+     */
+    private static Optional<Class<?>> getAuditedRepository(JoinPoint joinPoint) {
+        return Arrays.stream(ClassUtils.getAllInterfaces(joinPoint.getThis()))
+                .filter(repositoryInterface -> repositoryInterface.isAnnotationPresent(JaversSpringDataAuditable.class))
+                .findFirst();
+    }
+}
@@ -0,0 +1,78 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.config.MongoDBProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * In memory cache of the translation from an owner email to the id of the authentication token.
+ * <p>
+ * The emails that don't belong to any token are cached too, so the ordinary users never hit the database.
+ * It is enabled along with the {@link AuthorizationCache} so the same change stream keep it aligned.
+ */
+@Component
+public class AuthenticationTokenIdCache {
+    private final boolean enabled;
+    private final Cache<String, Optional<String>> cache;
+
+    public AuthenticationTokenIdCache(MongoDBProperties mongoDBProperties, ObjectProvider<MeterRegistry> meterRegistry) {
+        MongoDBProperties.AuthorizationCacheProperties properties = mongoDBProperties.getAuthorizationCache();
+        this.enabled = properties.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .recordStats()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .build();
+        if (enabled) {
+            // expose hits, misses and evictions
+            meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, "authentication-token-id"));
+        }
+    }
+
+    /**
+     * Return the token id of the email, or empty if the email doesn't belong to a token
+     *
+     * @param email  the owner email
+     * @param loader the loader used when the email is not cached
+     * @return the token id
+     */
+    public Optional<String> get(String email, Function<String, Optional<String>> loader) {
+        if (!enabled || email == null) return loader.apply(email);
+        // an invalidation of the same email wait for the running load, so a stale value is never kept
+        return cache.get(email, loader);
+    }
+
+    /**
+     * Invalidate the entry of an email, to use when a token is created or deleted
+     *
+     * @param email the token email
+     */
+    public void invalidateEmail(String email) {
+        if (!enabled || email == null) return;
+        cache.invalidate(email);
+    }
+
+    /**
+     * Invalidate the entries that resolve to a token id, to use when only the id of a deleted token is known
+     *
+     * @param tokenId the token id
+     */
+    public void invalidateTokenId(String tokenId) {
+        if (!enabled || tokenId == null) return;
+        cache.asMap().values().removeIf(id -> id.filter(tokenId::equals).isPresent());
+    }
+
+    /**
+     * Invalidate all the entries
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,149 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.config.MongoDBProperties;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Builder;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * In memory cache of the effective permission of an owner.
+ * <p>
+ * Each entry keep track of the owners, groups and authorization ids used to resolve it,
+ * so a change on one of them can invalidate only the affected entries.
+ */
+@Log4j2
+@Component
+public class AuthorizationCache {
+    private final boolean enabled;
+    private final Cache<List<Object>, Entry> cache;
+    // increased on every invalidation, used to discard the loads that are concurrent to an invalidation
+    private final AtomicLong generation = new AtomicLong();
+
+    public AuthorizationCache(MongoDBProperties mongoDBProperties, ObjectProvider<MeterRegistry> meterRegistry) {
+        MongoDBProperties.AuthorizationCacheProperties properties = mongoDBProperties.getAuthorizationCache();
+        this.enabled = properties.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .recordStats()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .build();
+        if (enabled) {
+            // expose hits, misses and evictions
+            meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, "authorization"));
+        }
+    }
+
+    /**
+     * The resolved authorizations along with all the information used to resolve it
+     *
+     * @param owners         the owner ids (user, token or token email) the authorizations are resolved for
+     * @param groups         the groups (ldap and local) inherited by the owner
+     * @param authorizations the resolved authorizations
+     */
+    @Builder
+    public record ResolvedAuthorizations(Set<String> owners, Set<String> groups, List<AuthorizationDTO> authorizations) {
+    }
+
+    private record Entry(Set<String> owners, Set<String> groups, Set<String> authorizationIds, List<AuthorizationDTO> authorizations) {
+    }
+
+    /**
+     * Create a key using all the parameter of a query
+     *
+     * @param parts the query parameter
+     * @return the key
+     */
+    public static List<Object> key(Object... parts) {
+        return Arrays.asList(parts);
+    }
+
+    /**
+     * Return the cached authorizations or load it
+     *
+     * @param key    the key of the query
+     * @param loader the loader used when the entry is not cached
+     * @return the resolved authorizations
+     */
+    public List<AuthorizationDTO> get(List<Object> key, Supplier<ResolvedAuthorizations> loader) {
+        if (!enabled) return loader.get().authorizations();
+
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null) return entry.authorizations();
+
+        long startGeneration = generation.get();
+        ResolvedAuthorizations resolved = loader.get();
+        List<AuthorizationDTO> authorizations = List.copyOf(resolved.authorizations());
+        if (generation.get() == startGeneration) {
+            // cache only if nothing has changed during the load
+            Entry newEntry = new Entry(
+                    Set.copyOf(resolved.owners()),
+                    Set.copyOf(resolved.groups()),
+                    authorizations.stream().map(AuthorizationDTO::id).filter(Objects::nonNull).collect(Collectors.toSet()),
+                    authorizations
+            );
+            cache.put(key, newEntry);
+            // an invalidation between the check and the put could have missed the new entry,
+            // one that starts after the put always sees it
+            if (generation.get() != startGeneration) {
+                cache.asMap().remove(key, newEntry);
+            }
+        }
+        return authorizations;
+    }
+
+    /**
+     * Invalidate all the entries resolved for an owner
+     *
+     * @param ownerId the owner id
+     */
+    public void invalidateOwner(String ownerId) {
+        invalidate(entry -> entry.owners().contains(ownerId));
+    }
+
+    /**
+     * Invalidate all the entries that inherit from a group
+     *
+     * @param groupId the group id
+     */
+    public void invalidateGroup(String groupId) {
+        invalidate(entry -> entry.groups().contains(groupId));
+    }
+
+    /**
+     * Invalidate all the entries that contain an authorization
+     *
+     * @param authorizationId the authorization id
+     */
+    public void invalidateAuthorization(String authorizationId) {
+        invalidate(entry -> entry.authorizationIds().contains(authorizationId));
+    }
+
+    /**
+     * Invalidate all the entries
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private void invalidate(Predicate<Entry> predicate) {
+        if (!enabled) return;
+        generation.incrementAndGet();
+        cache.asMap().values().removeIf(predicate);
+    }
+}
@@ -0,0 +1,134 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.cache;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import edu.stanford.slac.ad.eed.baselib.model.AuthorizationOwnerType;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.messaging.Message;
+
+import java.util.List;
+
+/**
+ * Translate the change stream events of the authorization, local group and authentication token
+ * collections into the invalidation of the {@link AuthorizationCache} and {@link AuthenticationTokenIdCache} entries.
+ */
+@Log4j2
+@AllArgsConstructor
+public class AuthorizationCacheInvalidator {
+    private final AuthorizationCache authorizationCache;
+    private final AuthenticationTokenIdCache authenticationTokenIdCache;
+
+    /**
+     * Manage a change on the authorization collection
+     *
+     * @param message the change stream message
+     */
+    public void onAuthorizationChange(Message<ChangeStreamDocument<Document>, Document> message) {
+        ChangeStreamDocument<Document> event = message.getRaw();
+        if (event == null || !isDocumentEvent(event.getOperationType())) {
+            authorizationCache.invalidateAll();
+            return;
+        }
+        String id = getDocumentId(event.getDocumentKey());
+        if (id != null) {
+            // in case of delete only the id is available
+            authorizationCache.invalidateAuthorization(id);
+        }
+        Document authorization = event.getFullDocument();
+        if (authorization == null) {
+            if (event.getOperationType() != OperationType.DELETE) {
+                // the document has been removed before the lookup
+                authorizationCache.invalidateAll();
+            }
+            return;
+        }
+        String owner = authorization.getString("owner");
+        if (AuthorizationOwnerType.Group.name().equals(authorization.getString("ownerType"))) {
+            authorizationCache.invalidateGroup(owner);
+        } else {
+            authorizationCache.invalidateOwner(owner);
+        }
+    }
+
+    /**
+     * Manage a change on the local group collection
+     *
+     * @param message the change stream message
+     */
+    public void onLocalGroupChange(Message<ChangeStreamDocument<Document>, Document> message) {
+        ChangeStreamDocument<Document> event = message.getRaw();
+        if (event == null || !isDocumentEvent(event.getOperationType())) {
+            authorizationCache.invalidateAll();
+            return;
+        }
+        String id = getDocumentId(event.getDocumentKey());
+        if (id != null) {
+            // removed members
+            authorizationCache.invalidateGroup(id);
+        }
+        Document localGroup = event.getFullDocument();
+        if (localGroup != null) {
+            // added members
+            List<String> members = localGroup.getList("members", String.class);
+            if (members != null) {
+                members.forEach(authorizationCache::invalidateOwner);
+            }
+        } else if (event.getOperationType() != OperationType.DELETE) {
+            authorizationCache.invalidateAll();
+        }
+    }
+
+    /**
+     * Manage a change on the authentication token collection
+     *
+     * @param message the change stream message
+     */
+    public void onAuthenticationTokenChange(Message<ChangeStreamDocument<Document>, Document> message) {
+        ChangeStreamDocument<Document> event = message.getRaw();
+        if (event == null || !isDocumentEvent(event.getOperationType())) {
+            authorizationCache.invalidateAll();
+            authenticationTokenIdCache.invalidateAll();
+            return;
+        }
+        String id = getDocumentId(event.getDocumentKey());
+        if (id != null) {
+            authorizationCache.invalidateOwner(id);
+            // in case of delete only the id is available
+            authenticationTokenIdCache.invalidateTokenId(id);
+        }
+        Document authenticationToken = event.getFullDocument();
+        if (authenticationToken != null && authenticationToken.getString("email") != null) {
+            authorizationCache.invalidateOwner(authenticationToken.getString("email"));
+            authenticationTokenIdCache.invalidateEmail(authenticationToken.getString("email"));
+        } else if (event.getOperationType() != OperationType.DELETE) {
+            authorizationCache.invalidateAll();
+            authenticationTokenIdCache.invalidateAll();
+        }
+    }
+
+    /**
+     * Return true if the operation concern a single document
+     */
+    private static boolean isDocumentEvent(OperationType operationType) {
+        return operationType == OperationType.INSERT ||
+                operationType == OperationType.UPDATE ||
+                operationType == OperationType.REPLACE ||
+                operationType == OperationType.DELETE;
+    }
+
+    /**
+     * Return the string representation of the document id
+     */
+    private static String getDocumentId(BsonDocument documentKey) {
+        if (documentKey == null) return null;
+        BsonValue id = documentKey.get("_id");
+        if (id == null) return null;
+        if (id.isObjectId()) return id.asObjectId().getValue().toHexString();
+        if (id.isString()) return id.asString().getValue();
+        return null;
+    }
+}
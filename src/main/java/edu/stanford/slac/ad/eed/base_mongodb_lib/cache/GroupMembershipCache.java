@@ -0,0 +1,79 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.config.MongoDBProperties;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.GroupDTO;
+import edu.stanford.slac.ad.eed.baselib.service.PeopleGroupService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * In memory cache of the ldap groups where a user belongs.
+ * <p>
+ * The concurrent requests for the same user wait for a single ldap search, and an entry accessed
+ * after the refresh time is reloaded in background while the current groups are still returned.
+ */
+@Log4j2
+@Component
+public class GroupMembershipCache {
+    private final boolean enabled;
+    private final PeopleGroupService peopleGroupService;
+    private final LoadingCache<String, List<String>> cache;
+
+    public GroupMembershipCache(MongoDBProperties mongoDBProperties, PeopleGroupService peopleGroupService, ObjectProvider<MeterRegistry> meterRegistry) {
+        MongoDBProperties.GroupMembershipCacheProperties properties = mongoDBProperties.getGroupMembershipCache();
+        this.enabled = properties.isEnabled();
+        this.peopleGroupService = peopleGroupService;
+        this.cache = Caffeine.newBuilder()
+                .recordStats()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .refreshAfterWrite(properties.getRefreshAfterWrite())
+                .build(this::load);
+        if (enabled) {
+            // expose hits, misses and evictions
+            meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, "group-membership"));
+        }
+    }
+
+    /**
+     * Return the uid of the ldap groups where the user belongs
+     *
+     * @param userId the user id
+     * @return the group uid list
+     */
+    public List<String> get(String userId) {
+        if (!enabled) return load(userId);
+        return cache.get(userId);
+    }
+
+    /**
+     * Invalidate the groups of a user
+     *
+     * @param userId the user id
+     */
+    public void invalidate(String userId) {
+        cache.invalidate(userId);
+    }
+
+    /**
+     * Invalidate all the users
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private List<String> load(String userId) {
+        log.debug("Load ldap groups for user '{}'", userId);
+        return peopleGroupService.findGroupByUserId(userId)
+                .stream()
+                .map(GroupDTO::uid)
+                .toList();
+    }
+}
@@ -0,0 +1,52 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.config;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.audit.AsyncAuditCommitter;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.audit.AsyncAuditRepositoryAspect;
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.javers.core.Javers;
+import org.javers.spring.auditable.AuthorProvider;
+import org.javers.spring.auditable.aspect.springdata.JaversSpringDataAuditableRepositoryAspect;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+/**
+ * Enable the asynchronous javers commits of the repositories annotated with
+ * {@link org.javers.spring.annotation.JaversSpringDataAuditable}. The synchronous javers aspect need to be
+ * disabled with javers.springDataAuditableRepositoryAspectEnabled=false
+ */
+@Log4j2
+@Configuration
+@ConditionalOnProperty(prefix = "edu.stanford.slac.ad.eed.mongodb.async-audit", name = "enabled", havingValue = "true")
+public class AsyncAuditConfiguration {
+    @Bean
+    public AsyncAuditCommitter asyncAuditCommitter(Javers javers, MongoConverter mongoConverter, MongoDBProperties mongoDBProperties, ObjectProvider<JaversSpringDataAuditableRepositoryAspect> javersAuditableAspect, ObjectProvider<MeterRegistry> meterRegistry) {
+        if (javersAuditableAspect.getIfAvailable() != null) {
+            // every change would be committed twice
+            throw ControllerLogicException.builder()
+                    .errorCode(-1)
+                    .errorMessage("The asynchronous audit need javers.springDataAuditableRepositoryAspectEnabled=false")
+                    .errorDomain("AsyncAuditConfiguration::asyncAuditCommitter")
+                    .build();
+        }
+        AsyncAuditCommitter asyncAuditCommitter = new AsyncAuditCommitter(javers, mongoConverter, mongoDBProperties.getAsyncAudit());
+        // expose the changes lost after all the commit attempts
+        meterRegistry.ifAvailable(
+                registry -> FunctionCounter.builder("javers.async.commit.failed", asyncAuditCommitter, AsyncAuditCommitter::getFailedCommits)
+                        .description("The audited changes not committed to javers after all the attempts")
+                        .register(registry)
+        );
+        return asyncAuditCommitter;
+    }
+
+    @Bean
+    public AsyncAuditRepositoryAspect asyncAuditRepositoryAspect(AsyncAuditCommitter asyncAuditCommitter, AuthorProvider authorProvider, MongoTemplate mongoTemplate) {
+        return new AsyncAuditRepositoryAspect(asyncAuditCommitter, authorProvider, mongoTemplate);
+    }
+}
@@ -0,0 +1,60 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.config;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.cache.AuthenticationTokenIdCache;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.cache.AuthorizationCache;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.cache.AuthorizationCacheInvalidator;
+import edu.stanford.slac.ad.eed.baselib.model.AuthenticationToken;
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.ad.eed.baselib.model.LocalGroup;
+import lombok.extern.log4j.Log4j2;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.MessageListener;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+
+/**
+ * Enable the change stream listener that keep the {@link AuthorizationCache} and {@link AuthenticationTokenIdCache} aligned
+ * with the authorization, local group and authentication token collections of all the nodes
+ */
+@Log4j2
+@Configuration
+@ConditionalOnProperty(prefix = "edu.stanford.slac.ad.eed.mongodb.authorization-cache", name = "enabled", havingValue = "true")
+public class AuthorizationCacheConfiguration {
+    @Bean
+    public MessageListenerContainer authorizationCacheListenerContainer(MongoTemplate mongoTemplate, AuthorizationCache authorizationCache, AuthenticationTokenIdCache authenticationTokenIdCache) {
+        AuthorizationCacheInvalidator invalidator = new AuthorizationCacheInvalidator(authorizationCache, authenticationTokenIdCache);
+        MessageListenerContainer container = new DefaultMessageListenerContainer(
+                mongoTemplate,
+                new SimpleAsyncTaskExecutor("authorization-cache-"),
+                error -> {
+                    // an event could have been lost so nothing in the cache can be trusted anymore
+                    log.error("Error on authorization cache change stream: {}", error.toString());
+                    authorizationCache.invalidateAll();
+                    authenticationTokenIdCache.invalidateAll();
+                }
+        );
+        register(container, mongoTemplate.getCollectionName(Authorization.class), invalidator::onAuthorizationChange);
+        register(container, mongoTemplate.getCollectionName(LocalGroup.class), invalidator::onLocalGroupChange);
+        register(container, mongoTemplate.getCollectionName(AuthenticationToken.class), invalidator::onAuthenticationTokenChange);
+        return container;
+    }
+
+    private static void register(MessageListenerContainer container, String collectionName, MessageListener<ChangeStreamDocument<Document>, Document> listener) {
+        log.info("Listen for changes on '{}' to invalidate the authorization cache", collectionName);
+        container.register(
+                ChangeStreamRequest.builder(listener)
+                        .collection(collectionName)
+                        .fullDocumentLookup(FullDocument.UPDATE_LOOKUP)
+                        .build(),
+                Document.class
+        );
+    }
+}
@@ -0,0 +1,43 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Open a {@link CausalSessionScope} for each http request, so the permission checks of a request see the
+ * authorization written before them by the same request. The session is started only by the requests
+ * that access the database
+ */
+@Log4j2
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "edu.stanford.slac.ad.eed.mongodb.causal-session", name = "enabled", havingValue = "true")
+public class CausalSessionConfiguration {
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> causalSessionFilter(CausalSessionScope causalSessionScope) {
+        log.info("Bind a causally consistent mongodb session to each request");
+        FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+                try (CausalSessionScope.Scope ignored = causalSessionScope.open()) {
+                    filterChain.doFilter(request, response);
+                }
+            }
+        });
+        // before the security filters, that can already check the permissions
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,177 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.config;
+
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.ClientSession;
+import org.bson.BsonDocument;
+import org.bson.BsonTimestamp;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * Bind a causally consistent session to the current thread.
+ * <p>
+ * The authorization reads and writes, and the local group writes, made while a scope is open go through the
+ * same session, so a permission check routed to a secondary see the grants and revocations done before it in
+ * the same scope. The session is started by the first operation that use it, so a scope without database
+ * access cost nothing. When the causal session is not enabled the scopes do nothing. The sessions are not
+ * thread safe, so a scope cover only the thread that opened it; the work handed to another thread is
+ * {@link #propagate propagated} in a new session that start from the causal point of the current one.
+ */
+@Component
+public class CausalSessionScope {
+    private static final ClientSessionOptions CAUSAL_SESSION_OPTIONS = ClientSessionOptions.builder()
+            .causallyConsistent(true)
+            .build();
+    private final ThreadLocal<OpenScope> currentScope = new ThreadLocal<>();
+    private final MongoDatabaseFactory mongoDatabaseFactory;
+    private final boolean enabled;
+
+    public CausalSessionScope(MongoDatabaseFactory mongoDatabaseFactory, MongoDBProperties mongoDBProperties) {
+        this.mongoDatabaseFactory = mongoDatabaseFactory;
+        this.enabled = mongoDBProperties.getCausalSession().isEnabled();
+    }
+
+    /**
+     * Open a scope, the scopes opened inside another one share its session
+     *
+     * @return the scope to close at the end of the request
+     */
+    public Scope open() {
+        return open(null, null);
+    }
+
+    private Scope open(BsonTimestamp operationTime, BsonDocument clusterTime) {
+        if (!enabled || currentScope.get() != null) return () -> {
+        };
+        OpenScope openScope = new OpenScope(operationTime, clusterTime);
+        currentScope.set(openScope);
+        return () -> {
+            currentScope.remove();
+            openScope.close();
+        };
+    }
+
+    /**
+     * Execute the call in a scope
+     *
+     * @param call the call
+     * @return the result of the call
+     */
+    public <T> T run(Supplier<T> call) {
+        try (Scope ignored = open()) {
+            return call.get();
+        }
+    }
+
+    /**
+     * Wrap a call that will be executed by another thread, so it see what the current scope has seen so far.
+     * Must be called by the thread that own the scope
+     *
+     * @param call the call
+     * @return the call itself when no scope is open, otherwise the call executed in a scope that continue the current one
+     */
+    public <T> Supplier<T> propagate(Supplier<T> call) {
+        OpenScope openScope = currentScope.get();
+        if (openScope == null) return call;
+        BsonTimestamp operationTime = openScope.operationTime();
+        BsonDocument clusterTime = openScope.clusterTime();
+        return () -> {
+            try (Scope ignored = open(operationTime, clusterTime)) {
+                return call.get();
+            }
+        };
+    }
+
+    /**
+     * Check if a scope is open on the current thread
+     */
+    public boolean isActive() {
+        return currentScope.get() != null;
+    }
+
+    /**
+     * Check if the session of the current scope has been started
+     */
+    public boolean isSessionStarted() {
+        OpenScope openScope = currentScope.get();
+        return openScope != null && openScope.session != null;
+    }
+
+    /**
+     * Return the template bound to the current session
+     *
+     * @param mongoTemplate the template to bind
+     * @return the template itself when no session is bound or a transaction is active
+     */
+    public MongoTemplate bind(MongoTemplate mongoTemplate) {
+        return bind(mongoTemplate, mongoTemplate.getReadPreference());
+    }
+
+    /**
+     * Return the template bound to the current session with a specific read preference,
+     * the session is started by the first bind of the scope
+     *
+     * @param mongoTemplate  the template to bind
+     * @param readPreference the read preference of the bound template
+     * @return the template itself when no session is bound or a transaction is active
+     */
+    public MongoTemplate bind(MongoTemplate mongoTemplate, ReadPreference readPreference) {
+        OpenScope openScope = currentScope.get();
+        // the transactions have their own session
+        if (openScope == null || TransactionSynchronizationManager.isActualTransactionActive()) return mongoTemplate;
+        MongoTemplate sessionMongoTemplate = mongoTemplate.withSession(openScope.session());
+        // the session bound template doesn't inherit the read preference
+        sessionMongoTemplate.setReadPreference(readPreference);
+        return sessionMongoTemplate;
+    }
+
+    /**
+     * The state of the scope open on a thread
+     */
+    private final class OpenScope {
+        // the causal point the session start from, set when the scope continue the one of another thread
+        private final BsonTimestamp startOperationTime;
+        private final BsonDocument startClusterTime;
+        private ClientSession session;
+
+        private OpenScope(BsonTimestamp startOperationTime, BsonDocument startClusterTime) {
+            this.startOperationTime = startOperationTime;
+            this.startClusterTime = startClusterTime;
+        }
+
+        private ClientSession session() {
+            if (session == null) {
+                session = mongoDatabaseFactory.getSession(CAUSAL_SESSION_OPTIONS);
+                if (startClusterTime != null) session.advanceClusterTime(startClusterTime);
+                if (startOperationTime != null) session.advanceOperationTime(startOperationTime);
+            }
+            return session;
+        }
+
+        private BsonTimestamp operationTime() {
+            return session != null ? session.getOperationTime() : startOperationTime;
+        }
+
+        private BsonDocument clusterTime() {
+            return session != null ? session.getClusterTime() : startClusterTime;
+        }
+
+        private void close() {
+            if (session != null) session.close();
+        }
+    }
+
+    /**
+     * A scope of the causally consistent session
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
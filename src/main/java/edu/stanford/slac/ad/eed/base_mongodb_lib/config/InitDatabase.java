@@ -7,13 +7,17 @@ import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoDatabase;
 import edu.stanford.slac.ad.eed.baselib.config.AppProperties;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.bson.Document;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.mongo.MongoProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.mongodb.MongoDatabaseFactory;
 import org.springframework.data.mongodb.MongoTransactionManager;
@@ -30,11 +34,16 @@ import java.util.Objects;
 @Configuration
 @EnableMongoAuditing
 @EnableTransactionManagement
-@EnableMongoRepositories(basePackages = "edu.stanford.slac.ad.eed.base_mongodb_lib.repository")
+// the reactive repositories are enabled only by the ReactiveAuthConfiguration
+@EnableMongoRepositories(
+        basePackages = "edu.stanford.slac.ad.eed.base_mongodb_lib.repository",
+        excludeFilters = @ComponentScan.Filter(type = FilterType.REGEX, pattern = "edu\\.stanford\\.slac\\.ad\\.eed\\.base_mongodb_lib\\.repository\\.reactive\\..*")
+)
 public class InitDatabase {
     private final AppProperties appProperties;
     private MongoProperties mongoProperties;
     private final MongoDBProperties mongoDBProperties;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
 
     @Bean
     @Primary
@@ -45,11 +54,16 @@ public class InitDatabase {
     @Bean
     public MongoClient mongoAdmin() {
         ConnectionString adminConnectionString = new ConnectionString(mongoDBProperties.getDbAdminUri());
-        MongoClientSettings mongoClientSettings = MongoClientSettings.builder()
+        MongoClientSettings.Builder mongoClientSettingsBuilder = MongoClientSettings.builder()
                 .applyConnectionString(adminConnectionString)
-                .applicationName(appProperties.getAppName())
-                .build();
-        return MongoClients.create(mongoClientSettings);
+                .applicationName(appProperties.getAppName());
+        instrument(mongoClientSettingsBuilder, "admin");
+        return MongoClients.create(mongoClientSettingsBuilder.build());
+    }
+
+    @Bean
+    public MongoClientPropertiesCustomizer mongoClientPropertiesCustomizer() {
+        return new MongoClientPropertiesCustomizer(mongoDBProperties.getClient(), mongoProperties.getUri());
     }
 
     @Bean
@@ -59,9 +73,18 @@ public class InitDatabase {
         // ensure database and user
         createApplicationUser(mongoAdmin(), connectionString);
 
-        MongoClientSettings mongoClientSettings = MongoClientSettings.builder()
-                .applyConnectionString(connectionString)
-                .build();
+        MongoClientSettings.Builder mongoClientSettingsBuilder = MongoClientSettings.builder()
+                .applyConnectionString(connectionString);
+        // pool, timeouts, read preference and compressors not specified in the uri
+        mongoClientPropertiesCustomizer().customize(mongoClientSettingsBuilder);
+        instrument(mongoClientSettingsBuilder, "application");
+        MongoClientSettings mongoClientSettings = mongoClientSettingsBuilder.build();
+        log.info(
+                "Mongodb client pool {}-{} connections, read preference {}",
+                mongoClientSettings.getConnectionPoolSettings().getMinSize(),
+                mongoClientSettings.getConnectionPoolSettings().getMaxSize(),
+                mongoClientSettings.getReadPreference()
+        );
 
         return new SimpleMongoClientDatabaseFactory(
                 MongoClients.create(mongoClientSettings),
@@ -69,6 +92,20 @@ public class InitDatabase {
         );
     }
 
+    /**
+     * Add the command and connection pool metrics to the client, when the application has a meter registry
+     *
+     * @param builder    the client settings
+     * @param clientName the name of the client used as tag
+     */
+    private void instrument(MongoClientSettings.Builder builder, String clientName) {
+        if (!mongoDBProperties.getMetrics().isEnabled()) return;
+        meterRegistry.ifAvailable(registry -> {
+            log.info("Enable the metrics of the mongodb {} client", clientName);
+            MongoClientMetrics.instrument(builder, registry, clientName);
+        });
+    }
+
     private void createApplicationUser(MongoClient mongoClient, ConnectionString connectionString) {
         log.info("Start user creation");
         // Connect to the admin database
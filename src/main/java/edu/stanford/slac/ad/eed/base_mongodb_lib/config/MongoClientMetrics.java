@@ -0,0 +1,87 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.config;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.event.CommandEvent;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.ConnectionPoolCreatedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.mongodb.DefaultMongoCommandTagsProvider;
+import io.micrometer.core.instrument.binder.mongodb.DefaultMongoConnectionPoolTagsProvider;
+import io.micrometer.core.instrument.binder.mongodb.MongoCommandTagsProvider;
+import io.micrometer.core.instrument.binder.mongodb.MongoConnectionPoolTagsProvider;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsCommandListener;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
+
+/**
+ * Register the micrometer command and connection pool listeners on the mongodb clients created by the library.
+ * <p>
+ * The commands are timed in {@code mongodb.driver.commands} tagged by command and collection name, the pools
+ * expose the {@code mongodb.driver.pool.*} gauges (size, checked out and wait queue). All the meters have the
+ * {@code mongodb.client} tag to distinguish the application client from the admin one.
+ */
+public final class MongoClientMetrics {
+    public static final String CLIENT_TAG = "mongodb.client";
+
+    private MongoClientMetrics() {
+    }
+
+    /**
+     * Add the metrics listeners to the client settings
+     *
+     * @param builder       the client settings
+     * @param meterRegistry the registry of the meters
+     * @param clientName    the name of the client used as tag
+     */
+    public static void instrument(MongoClientSettings.Builder builder, MeterRegistry meterRegistry, String clientName) {
+        builder.addCommandListener(
+                new MongoMetricsCommandListener(meterRegistry, new ClientCommandTagsProvider(clientName))
+        );
+        builder.applyToConnectionPoolSettings(
+                pool -> pool.addConnectionPoolListener(
+                        new MongoMetricsConnectionPoolListener(meterRegistry, new ClientConnectionPoolTagsProvider(clientName))
+                )
+        );
+    }
+
+    /**
+     * The default command tags along with the client name
+     */
+    private static class ClientCommandTagsProvider implements MongoCommandTagsProvider {
+        private final MongoCommandTagsProvider delegate = new DefaultMongoCommandTagsProvider();
+        private final Tag clientTag;
+
+        ClientCommandTagsProvider(String clientName) {
+            this.clientTag = Tag.of(CLIENT_TAG, clientName);
+        }
+
+        @Override
+        public Iterable<Tag> commandTags(CommandEvent event) {
+            return Tags.of(delegate.commandTags(event)).and(clientTag);
+        }
+
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            // the default provider remember the collection of the command
+            delegate.commandStarted(event);
+        }
+    }
+
+    /**
+     * The default connection pool tags along with the client name
+     */
+    private static class ClientConnectionPoolTagsProvider implements MongoConnectionPoolTagsProvider {
+        private final MongoConnectionPoolTagsProvider delegate = new DefaultMongoConnectionPoolTagsProvider();
+        private final Tag clientTag;
+
+        ClientConnectionPoolTagsProvider(String clientName) {
+            this.clientTag = Tag.of(CLIENT_TAG, clientName);
+        }
+
+        @Override
+        public Iterable<Tag> connectionPoolTags(ConnectionPoolCreatedEvent event) {
+            return Tags.of(delegate.connectionPoolTags(event)).and(clientTag);
+        }
+    }
+}
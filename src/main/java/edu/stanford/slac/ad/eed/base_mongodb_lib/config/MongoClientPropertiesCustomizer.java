@@ -0,0 +1,109 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.config;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCompressor;
+import com.mongodb.ReadPreference;
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Apply the {@link MongoDBProperties.ClientProperties} to the settings of a mongodb client.
+ * <p>
+ * A setting is applied only when the connection string doesn't specify it, so the uri can still override
+ * the configuration. Being a {@link MongoClientSettingsBuilderCustomizer} the same settings are applied
+ * also to the clients created by spring boot, like the reactive one.
+ */
+public class MongoClientPropertiesCustomizer implements MongoClientSettingsBuilderCustomizer {
+    private final MongoDBProperties.ClientProperties clientProperties;
+    private final ConnectionString connectionString;
+
+    public MongoClientPropertiesCustomizer(MongoDBProperties.ClientProperties clientProperties, String uri) {
+        this.clientProperties = clientProperties;
+        this.connectionString = uri != null ? new ConnectionString(uri) : null;
+    }
+
+    @Override
+    public void customize(MongoClientSettings.Builder builder) {
+        builder.applyToConnectionPoolSettings(
+                pool -> {
+                    if (isNotInUri(ConnectionString::getMinConnectionPoolSize)) {
+                        pool.minSize(clientProperties.getMinPoolSize());
+                    }
+                    if (isNotInUri(ConnectionString::getMaxConnectionPoolSize)) {
+                        pool.maxSize(clientProperties.getMaxPoolSize());
+                    }
+                    if (isNotInUri(ConnectionString::getMaxWaitTime)) {
+                        pool.maxWaitTime(clientProperties.getMaxWaitTime().toMillis(), TimeUnit.MILLISECONDS);
+                    }
+                    if (isNotInUri(ConnectionString::getMaxConnectionIdleTime)) {
+                        pool.maxConnectionIdleTime(clientProperties.getMaxConnectionIdleTime().toMillis(), TimeUnit.MILLISECONDS);
+                    }
+                    if (isNotInUri(ConnectionString::getMaxConnectionLifeTime)) {
+                        pool.maxConnectionLifeTime(clientProperties.getMaxConnectionLifeTime().toMillis(), TimeUnit.MILLISECONDS);
+                    }
+                }
+        );
+        builder.applyToClusterSettings(
+                cluster -> {
+                    if (isNotInUri(ConnectionString::getServerSelectionTimeout)) {
+                        cluster.serverSelectionTimeout(clientProperties.getServerSelectionTimeout().toMillis(), TimeUnit.MILLISECONDS);
+                    }
+                }
+        );
+        builder.applyToSocketSettings(
+                socket -> {
+                    if (isNotInUri(ConnectionString::getConnectTimeout)) {
+                        socket.connectTimeout(clientProperties.getConnectTimeout().toMillis(), TimeUnit.MILLISECONDS);
+                    }
+                    if (isNotInUri(ConnectionString::getSocketTimeout)) {
+                        socket.readTimeout(clientProperties.getSocketTimeout().toMillis(), TimeUnit.MILLISECONDS);
+                    }
+                }
+        );
+        if (isNotInUri(ConnectionString::getReadPreference) && clientProperties.getReadPreference() != null) {
+            builder.readPreference(ReadPreference.valueOf(clientProperties.getReadPreference()));
+        }
+        if (
+                (connectionString == null || connectionString.getCompressorList().isEmpty()) &&
+                        clientProperties.getCompressors() != null &&
+                        !clientProperties.getCompressors().isEmpty()
+        ) {
+            builder.compressorList(toCompressors(clientProperties.getCompressors()));
+        }
+    }
+
+    /**
+     * Check if the connection string doesn't contain the option
+     */
+    private boolean isNotInUri(Function<ConnectionString, Object> option) {
+        return connectionString == null || option.apply(connectionString) == null;
+    }
+
+    /**
+     * Convert the compressor names to the driver compressors
+     *
+     * @param compressors the compressor names
+     * @return the driver compressors
+     */
+    private static List<MongoCompressor> toCompressors(List<String> compressors) {
+        return compressors.stream()
+                .map(
+                        name -> switch (name.trim().toLowerCase()) {
+                            case "zstd" -> MongoCompressor.createZstdCompressor();
+                            case "snappy" -> MongoCompressor.createSnappyCompressor();
+                            case "zlib" -> MongoCompressor.createZlibCompressor();
+                            default -> throw ControllerLogicException.builder()
+                                    .errorCode(-1)
+                                    .errorMessage("The compressor '%s' is not supported".formatted(name))
+                                    .errorDomain("MongoClientPropertiesCustomizer::toCompressors")
+                                    .build();
+                        }
+                )
+                .toList();
+    }
+}
@@ -6,6 +6,10 @@ import lombok.Setter;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 @Log4j2
 @Getter
 @Setter
@@ -13,4 +17,154 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 public class MongoDBProperties {
     // the administrator uri for setup the mongodb user and database for the application
     private String dbAdminUri;
+    // the settings of the application mongodb client, the options present in the uri take precedence
+    private ClientProperties client = new ClientProperties();
+    // the configuration of the client metrics
+    private MetricsProperties metrics = new MetricsProperties();
+    // the routing of the authorization reads to the secondaries
+    private ReadRoutingProperties readRouting = new ReadRoutingProperties();
+    // the causally consistent session bound to each request
+    private CausalSessionProperties causalSession = new CausalSessionProperties();
+    // the configuration of the effective permission cache
+    private AuthorizationCacheProperties authorizationCache = new AuthorizationCacheProperties();
+    // the configuration of the ldap group membership cache
+    private GroupMembershipCacheProperties groupMembershipCache = new GroupMembershipCacheProperties();
+    // the configuration of the parallel lookups done to resolve the permissions
+    private AuthorizationLookupProperties authorizationLookup = new AuthorizationLookupProperties();
+    // the configuration of the anchored searches of local groups and authentication tokens
+    private WindowedSearchProperties windowedSearch = new WindowedSearchProperties();
+    // the configuration of the cursor based exports
+    private StreamingProperties streaming = new StreamingProperties();
+    // the configuration of the non-blocking permission checks
+    private ReactiveProperties reactive = new ReactiveProperties();
+    // the configuration of the asynchronous javers commits of the audited repositories
+    private AsyncAuditProperties asyncAudit = new AsyncAuditProperties();
+
+    @Getter
+    @Setter
+    public static class ClientProperties {
+        // the min number of connections kept open for each server
+        private int minPoolSize = 5;
+        // the max number of connections for each server
+        private int maxPoolSize = 100;
+        // the max time a request wait for a free connection
+        private Duration maxWaitTime = Duration.ofSeconds(10);
+        // the max time a connection can be idle before being closed
+        private Duration maxConnectionIdleTime = Duration.ofMinutes(10);
+        // the max life time of a connection, zero for no limit
+        private Duration maxConnectionLifeTime = Duration.ofMinutes(30);
+        // the max time to find a server for an operation
+        private Duration serverSelectionTimeout = Duration.ofSeconds(10);
+        // the max time to open a connection
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        // the max time to wait a response on a socket, zero for no limit
+        private Duration socketTimeout = Duration.ZERO;
+        // the read preference, one of primary, primaryPreferred, secondary, secondaryPreferred and nearest
+        private String readPreference = "primary";
+        // the wire compressors in order of preference (zstd, snappy and zlib), zstd and snappy need their library
+        private List<String> compressors = new ArrayList<>();
+    }
+
+    @Getter
+    @Setter
+    public static class MetricsProperties {
+        // register the command and connection pool metrics when the application has a micrometer registry
+        private boolean enabled = true;
+    }
+
+    @Getter
+    @Setter
+    public static class ReadRoutingProperties {
+        // send the permission checks and the authorization listings to the read preference, writes and transactions stay on the primary;
+        // with the authorization cache enabled the listings that fill it stay on the primary too
+        private boolean enabled = false;
+        // the read preference of the authorization reads
+        private String readPreference = "secondaryPreferred";
+        // the max replication lag of a selected secondary, at least 90 seconds, zero for no limit
+        private Duration maxStaleness = Duration.ofSeconds(90);
+    }
+
+    @Getter
+    @Setter
+    public static class CausalSessionProperties {
+        // bind a causally consistent session to each request, so the routed reads see the writes of the same request
+        private boolean enabled = false;
+    }
+
+    @Getter
+    @Setter
+    public static class AuthorizationCacheProperties {
+        // enable the in memory cache of the resolved authorizations
+        private boolean enabled = false;
+        // the max number of resolved authorization lists kept in memory
+        private long maximumSize = 10000;
+        // the max time a resolved authorization list is kept in memory
+        private Duration expireAfterWrite = Duration.ofMinutes(10);
+    }
+
+    @Getter
+    @Setter
+    public static class GroupMembershipCacheProperties {
+        // enable the in memory cache of the ldap groups of a user
+        private boolean enabled = false;
+        // the max number of users kept in memory
+        private long maximumSize = 10000;
+        // the max time the groups of a user are kept in memory
+        private Duration expireAfterWrite = Duration.ofMinutes(10);
+        // the time after which an accessed entry is reloaded in background, returning the current value meanwhile
+        private Duration refreshAfterWrite = Duration.ofMinutes(1);
+    }
+
+    @Getter
+    @Setter
+    public static class AuthorizationLookupProperties {
+        // run the independent lookups of the permission resolution in parallel
+        private boolean parallel = false;
+        // the number of threads used by the lookups
+        private int poolSize = 16;
+        // the max number of lookups waiting for a thread, when full the lookup run on the caller thread
+        private int queueSize = 256;
+        // the max time to wait for all the lookups of a single resolution
+        private Duration timeout = Duration.ofSeconds(5);
+        // run each lookup on a new virtual thread instead of the pool
+        private boolean virtualThreads = false;
+        // the max number of lookups running on virtual threads, 0 to use the max size of the driver connection pool
+        private int maxConcurrentLookups = 0;
+    }
+
+    @Getter
+    @Setter
+    public static class WindowedSearchProperties {
+        // return the context and the limit slices around an anchor with a single $unionWith aggregation
+        private boolean enabled = false;
+    }
+
+    @Getter
+    @Setter
+    public static class StreamingProperties {
+        // the number of documents fetched for each round trip of the export cursors
+        private int batchSize = 500;
+    }
+
+    @Getter
+    @Setter
+    public static class ReactiveProperties {
+        // create the reactive repositories and the reactive auth service, need the reactive mongodb driver
+        private boolean enabled = false;
+    }
+
+    @Getter
+    @Setter
+    public static class AsyncAuditProperties {
+        // commit the changes of the audited repositories from a background thread, need javers.springDataAuditableRepositoryAspectEnabled=false
+        private boolean enabled = false;
+        // the max number of changes waiting to be committed, the repository calls wait when it is full
+        private int queueSize = 10000;
+        // the max number of changes committed together
+        private int batchSize = 100;
+        // the max time to commit the waiting changes at shutdown
+        private Duration shutdownTimeout = Duration.ofSeconds(30);
+        // the max attempts of a commit, the failed ones are retried after a pause
+        private int maxCommitAttempts = 3;
+    }
 }
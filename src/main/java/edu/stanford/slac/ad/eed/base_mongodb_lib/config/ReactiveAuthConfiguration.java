@@ -0,0 +1,39 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.config;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.cache.GroupMembershipCache;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.repository.reactive.ReactiveAuthenticationTokenRepository;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.repository.reactive.ReactiveAuthorizationRepository;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.repository.reactive.ReactiveLocalGroupRepository;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.service.ReactiveAuthServiceImpl;
+import edu.stanford.slac.ad.eed.baselib.api.v1.mapper.AuthMapper;
+import edu.stanford.slac.ad.eed.baselib.config.AppProperties;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
+
+/**
+ * Enable the reactive repositories and the {@link ReactiveAuthServiceImpl}.
+ * The application need to provide the spring-boot-starter-data-mongodb-reactive dependency
+ */
+@Log4j2
+@Configuration
+@ConditionalOnClass(name = "org.springframework.data.mongodb.core.ReactiveMongoTemplate")
+@ConditionalOnProperty(prefix = "edu.stanford.slac.ad.eed.mongodb.reactive", name = "enabled", havingValue = "true")
+@EnableReactiveMongoRepositories(basePackages = "edu.stanford.slac.ad.eed.base_mongodb_lib.repository.reactive")
+public class ReactiveAuthConfiguration {
+    @Bean
+    public ReactiveAuthServiceImpl reactiveAuthService(AuthMapper authMapper, AppProperties appProperties, ReactiveAuthorizationRepository reactiveAuthorizationRepository, ReactiveAuthenticationTokenRepository reactiveAuthenticationTokenRepository, ReactiveLocalGroupRepository reactiveLocalGroupRepository, GroupMembershipCache groupMembershipCache) {
+        log.info("Enable the reactive authorization service");
+        return new ReactiveAuthServiceImpl(
+                authMapper,
+                appProperties,
+                reactiveAuthorizationRepository,
+                reactiveAuthenticationTokenRepository,
+                reactiveLocalGroupRepository,
+                groupMembershipCache
+        );
+    }
+}
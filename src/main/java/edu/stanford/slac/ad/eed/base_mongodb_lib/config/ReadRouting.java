@@ -0,0 +1,60 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.config;
+
+import com.mongodb.ReadPreference;
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Route the reads that tolerate a bounded staleness, like the permission checks, by a dedicated read preference.
+ * <p>
+ * The routed template share the client, the database and the converter of the application template, only the
+ * read preference differ, so writes and read-your-own-write lookups keep using the application template.
+ */
+public final class ReadRouting {
+    // the min max staleness accepted by the servers
+    private static final Duration MIN_MAX_STALENESS = Duration.ofSeconds(90);
+
+    private ReadRouting() {
+    }
+
+    /**
+     * Return the template for the routed reads
+     *
+     * @param mongoTemplate the application template
+     * @param properties    the read routing configuration
+     * @return the application template when the routing is disabled, otherwise a template with the read preference
+     */
+    public static MongoTemplate readTemplate(MongoTemplate mongoTemplate, MongoDBProperties.ReadRoutingProperties properties) {
+        if (!properties.isEnabled()) return mongoTemplate;
+        MongoTemplate readMongoTemplate = new MongoTemplate(mongoTemplate.getMongoDatabaseFactory(), mongoTemplate.getConverter());
+        readMongoTemplate.setReadPreference(readPreference(properties));
+        return readMongoTemplate;
+    }
+
+    /**
+     * Return the read preference with the max staleness bound
+     *
+     * @param properties the read routing configuration
+     * @return the read preference
+     */
+    public static ReadPreference readPreference(MongoDBProperties.ReadRoutingProperties properties) {
+        ReadPreference readPreference = ReadPreference.valueOf(properties.getReadPreference());
+        Duration maxStaleness = properties.getMaxStaleness();
+        // the primary cannot have a staleness bound
+        if (readPreference.equals(ReadPreference.primary()) || maxStaleness == null || maxStaleness.isZero()) {
+            return readPreference;
+        }
+        if (maxStaleness.compareTo(MIN_MAX_STALENESS) < 0) {
+            throw ControllerLogicException.builder()
+                    .errorCode(-1)
+                    .errorMessage("The max staleness need to be at least %d seconds".formatted(MIN_MAX_STALENESS.toSeconds()))
+                    .errorDomain("ReadRouting::readPreference")
+                    .build();
+        }
+        return ReadPreference.valueOf(properties.getReadPreference(), List.of(), maxStaleness.toSeconds(), TimeUnit.SECONDS);
+    }
+}
@@ -4,7 +4,24 @@ import edu.stanford.slac.ad.eed.baselib.model.AuthenticationToken;
 import edu.stanford.slac.ad.eed.baselib.model.AuthenticationTokenQueryParameter;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface AuthenticationTokenRepositoryCustom {
     List<AuthenticationToken> findAll(AuthenticationTokenQueryParameter queryParameterDTO);
+
+    /**
+     * Return a page of tokens ordered by (createdDate, id) starting after the cursor, with a single indexed query
+     * @param cursor the cursor returned by the previous page, null for the first page
+     * @param limit the max number of tokens of the page
+     * @param searchFilter the full text search, null to not filter
+     * @return the page and the cursor of the next one
+     */
+    KeysetPage<AuthenticationToken> findPage(String cursor, int limit, String searchFilter);
+
+    /**
+     * Stream all the tokens from a cursor, the stream need to be closed
+     * @param batchSize the number of tokens fetched for each round trip
+     * @return the stream of tokens
+     */
+    Stream<AuthenticationToken> streamAll(int batchSize);
 }
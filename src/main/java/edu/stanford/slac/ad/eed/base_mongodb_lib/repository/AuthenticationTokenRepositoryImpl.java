@@ -1,5 +1,6 @@
 package edu.stanford.slac.ad.eed.base_mongodb_lib.repository;
 
+import edu.stanford.slac.ad.eed.base_mongodb_lib.config.MongoDBProperties;
 import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
 import edu.stanford.slac.ad.eed.baselib.model.AuthenticationToken;
 import edu.stanford.slac.ad.eed.baselib.model.AuthenticationTokenQueryParameter;
@@ -18,11 +19,13 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 @AllArgsConstructor
 public class AuthenticationTokenRepositoryImpl implements AuthenticationTokenRepositoryCustom {
     private final MongoTemplate mongoTemplate;
+    private final MongoDBProperties mongoDBProperties;
 
 
     @Override
@@ -40,15 +43,81 @@ public class AuthenticationTokenRepositoryImpl implements AuthenticationTokenRep
                     .build();
         }
 
-        // all the criteria
-        List<Criteria> allCriteria = new ArrayList<>();
         LocalDateTime anchorCreatedDate = queryParameter.getAnchor() != null?getAnchorCreatedDate(queryParameter.getAnchor()):null;
-        List<AuthenticationToken> elementsBeforeAnchor = contextSearch(queryParameter, anchorCreatedDate, allCriteria);
-        List<AuthenticationToken> elementsAfterAnchor =  limitSearch(queryParameter, anchorCreatedDate, allCriteria);
+        if (
+                mongoDBProperties.getWindowedSearch().isEnabled() &&
+                        WindowedSearch.isApplicable(queryParameter.getSearchFilter()) &&
+                        anchorCreatedDate != null &&
+                        queryParameter.getContext() != null && queryParameter.getContext() > 0 &&
+                        queryParameter.getLimit() != null && queryParameter.getLimit() > 0
+        ) {
+            // context and limit slices in a single round trip
+            return WindowedSearch.find(
+                    mongoTemplate,
+                    AuthenticationToken.class,
+                    anchorCreatedDate,
+                    queryParameter.getContext(),
+                    queryParameter.getLimit()
+            );
+        }
+        // each slice has its own criteria
+        List<AuthenticationToken> elementsBeforeAnchor = contextSearch(queryParameter, anchorCreatedDate, new ArrayList<>());
+        List<AuthenticationToken> elementsAfterAnchor =  limitSearch(queryParameter, anchorCreatedDate, new ArrayList<>());
         elementsBeforeAnchor.addAll(elementsAfterAnchor);
         return elementsBeforeAnchor;
     }
 
+    @Override
+    public KeysetPage<AuthenticationToken> findPage(String cursor, int limit, String searchFilter) {
+        if (limit <= 0) {
+            throw ControllerLogicException
+                    .builder()
+                    .errorCode(-1)
+                    .errorMessage("The limit must be greater than zero")
+                    .errorDomain("AuthenticationTokenRepositoryImpl::findPage")
+                    .build();
+        }
+        Query query;
+        if (searchFilter != null && !searchFilter.isEmpty()) {
+            query = TextQuery.queryText(TextCriteria.forDefaultLanguage()
+                    .matchingAny(searchFilter.split(" "))
+            );
+        } else {
+            query = new Query();
+        }
+        if (cursor != null) {
+            KeysetCursor lastElement = KeysetCursor.decode(cursor);
+            query.addCriteria(
+                    new Criteria().orOperator(
+                            Criteria.where("createdDate").gt(lastElement.createdDate()),
+                            Criteria.where("createdDate").is(lastElement.createdDate()).and("id").gt(lastElement.id())
+                    )
+            );
+        }
+        // one more element to know if there is a next page
+        query.with(
+                Sort.by(Sort.Direction.ASC, "createdDate").and(Sort.by(Sort.Direction.ASC, "id"))
+        ).limit(limit + 1);
+        List<AuthenticationToken> found = mongoTemplate.find(query, AuthenticationToken.class);
+        if (found.size() <= limit) {
+            return KeysetPage.<AuthenticationToken>builder()
+                    .content(found)
+                    .build();
+        }
+        List<AuthenticationToken> content = found.subList(0, limit);
+        AuthenticationToken last = content.get(limit - 1);
+        return KeysetPage.<AuthenticationToken>builder()
+                .content(content)
+                .nextCursor(new KeysetCursor(last.getCreatedDate(), last.getId()).encode())
+                .build();
+    }
+
+    @Override
+    public Stream<AuthenticationToken> streamAll(int batchSize) {
+        Query query = new Query().cursorBatchSize(batchSize);
+        return mongoTemplate.stream(query, AuthenticationToken.class);
+    }
+
     /**
      * Get the query to search the work
      * @param anchorId the query parameter
@@ -0,0 +1,18 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.repository;
+
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.ad.eed.baselib.model.AuthorizationOwnerType;
+import lombok.Builder;
+
+/**
+ * Lean projection of an {@link Authorization} with only the fields needed to check a permission.
+ * All the fields are part of the authorization indexes so the query can be answered by the index alone.
+ *
+ * @param owner             the owner of the authorization
+ * @param ownerType         the type of the owner
+ * @param resource          the authorized resource
+ * @param authorizationType the value of the authorization type
+ */
+@Builder
+public record AuthorizationProjection(String owner, AuthorizationOwnerType ownerType, String resource, Integer authorizationType) {
+}
@@ -70,39 +70,4 @@ public interface AuthorizationRepository extends MongoRepository<Authorization,
      * @return list of authorizations
      */
     List<Authorization> findByOwnerAndOwnerTypeIsAndResourceStartingWith(String owner, AuthorizationOwnerType ownerType, String resourcePrefix);
-
-    /**
-     * Delete all authorizations for a given owner, resource and authorization type
-     * @param owner owner
-     * @param resource authorization type
-     * @param authorizationType owner type
-     */
-    void deleteByOwnerIsAndResourceIsAndAuthorizationTypeIs(String owner, String resource, Integer authorizationType);
-    /**
-     * Delete all authorizations for a given resource prefix
-     * @param resourcePrefix resource prefix
-     */
-    void deleteAllByResourceStartingWith(String resourcePrefix);
-    /**
-     * Delete all authorizations for a given resource
-     * @param resource resource
-     */
-    void deleteAllByResourceIs(String resource);
-    /**
-     * Delete all authorizations for a given owner
-     * @param owner owner
-     */
-    void deleteAllByOwnerIs(String owner);
-    /**
-     * Delete all authorizations for a given owner and owner type
-     * @param owner owner
-     * @param ownerType owner type
-     */
-    void deleteAllByResourceStartingWithAndOwnerIsAndOwnerTypeIs(String resourcePrefix, String owner, AuthorizationOwnerType ownerType);
-
-    /**
-     * Delete all authorizations for a given resource prefix and owner type
-     * @param ownerType owner type
-     */
-    void deleteAllByResourceStartingWithAndOwnerTypeIs(String resourcePrefix, AuthorizationOwnerType ownerType);
 }
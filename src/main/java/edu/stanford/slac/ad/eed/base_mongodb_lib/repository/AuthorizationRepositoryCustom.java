@@ -7,7 +7,153 @@ import org.springframework.data.mongodb.repository.Query;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface AuthorizationRepositoryCustom {
    String ensureAuthorization(Authorization authorization);
+
+   // the writes are implemented here, in place of the crud and derived ones, to go through the causal session if any
+
+   /**
+    * Save an authorization
+    * @param authorization the authorization to save
+    * @return the saved authorization
+    */
+   <S extends Authorization> S save(S authorization);
+
+   /**
+    * Save all the authorizations
+    * @param authorizations the authorizations to save
+    * @return the saved authorizations
+    */
+   <S extends Authorization> List<S> saveAll(Iterable<S> authorizations);
+
+   /**
+    * Delete an authorization
+    * @param authorization the authorization to delete
+    */
+   void delete(Authorization authorization);
+
+   /**
+    * Delete an authorization by id
+    * @param id the authorization id
+    */
+   void deleteById(String id);
+
+   /**
+    * Delete all authorizations for a given owner, resource and authorization type
+    * @param owner owner
+    * @param resource authorization type
+    * @param authorizationType owner type
+    */
+   void deleteByOwnerIsAndResourceIsAndAuthorizationTypeIs(String owner, String resource, Integer authorizationType);
+   /**
+    * Delete all authorizations for a given resource prefix
+    * @param resourcePrefix resource prefix
+    */
+   void deleteAllByResourceStartingWith(String resourcePrefix);
+   /**
+    * Delete all authorizations for a given resource
+    * @param resource resource
+    */
+   void deleteAllByResourceIs(String resource);
+   /**
+    * Delete all authorizations for a given owner
+    * @param owner owner
+    */
+   void deleteAllByOwnerIs(String owner);
+   /**
+    * Delete all authorizations for a given owner and owner type
+    * @param owner owner
+    * @param ownerType owner type
+    */
+   void deleteAllByResourceStartingWithAndOwnerIsAndOwnerTypeIs(String resourcePrefix, String owner, AuthorizationOwnerType ownerType);
+
+   /**
+    * Delete all authorizations for a given resource prefix and owner type
+    * @param ownerType owner type
+    */
+   void deleteAllByResourceStartingWithAndOwnerTypeIs(String resourcePrefix, AuthorizationOwnerType ownerType);
+
+   /**
+    * Find, with a single query, all the authorizations of an owner and of the groups he belongs to
+    * that have at least the authorization type and the resource that start with the prefix
+    * @param owner owner
+    * @param ownerType owner type
+    * @param groupIds the groups the owner belongs to
+    * @param authorizationType the minimum authorization type, null to not filter
+    * @param resourcePrefix the prefix of the resource, null to not filter
+    * @return list of authorizations
+    */
+   List<Authorization> findAllByOwnerAndGroupsAndAuthorizationTypeAndResourcePrefix(String owner, AuthorizationOwnerType ownerType, List<String> groupIds, Integer authorizationType, String resourcePrefix);
+
+   /**
+    * Same as {@link #findAllByOwnerAndGroupsAndAuthorizationTypeAndResourcePrefix} but return, computed by the server,
+    * only the higher authorization for each resource
+    * @param owner owner
+    * @param ownerType owner type
+    * @param groupIds the groups the owner belongs to
+    * @param authorizationType the minimum authorization type, null to not filter
+    * @param resourcePrefix the prefix of the resource, null to not filter
+    * @return list of authorizations, one for each resource
+    */
+   List<Authorization> findHigherByOwnerAndGroupsAndAuthorizationTypeAndResourcePrefix(String owner, AuthorizationOwnerType ownerType, List<String> groupIds, Integer authorizationType, String resourcePrefix);
+
+   /**
+    * Find, with a single query, all the authorizations of an owner with the resource that start with the prefix
+    * along with all the authorizations of the groups he belongs to
+    * @param owner owner
+    * @param ownerType owner type
+    * @param resourcePrefix the prefix of the owner resource, null to not filter
+    * @param groupIds the groups the owner belongs to
+    * @return list of authorizations
+    */
+   List<Authorization> findAllByOwnerAndResourcePrefixAndGroups(String owner, AuthorizationOwnerType ownerType, String resourcePrefix, List<String> groupIds);
+
+   /**
+    * Same as {@link #findAllByOwnerAndResourcePrefixAndGroups} but return, computed by the server,
+    * only the higher authorization for each resource
+    * @param owner owner
+    * @param ownerType owner type
+    * @param resourcePrefix the prefix of the owner resource, null to not filter
+    * @param groupIds the groups the owner belongs to
+    * @return list of authorizations, one for each resource
+    */
+   List<Authorization> findHigherByOwnerAndResourcePrefixAndGroups(String owner, AuthorizationOwnerType ownerType, String resourcePrefix, List<String> groupIds);
+
+   /**
+    * Find the authorizations projection for a given resource and a list of owners
+    * @param resource resource
+    * @param owners the owners
+    * @return list of authorizations projection
+    */
+   List<AuthorizationProjection> findProjectionByResourceAndOwnerIn(String resource, List<String> owners);
+
+   /**
+    * Find the authorizations projection for a given resource, minimum authorization type and owner type
+    * @param resource resource
+    * @param authorizationType the minimum authorization type
+    * @param ownerType owner type
+    * @return list of authorizations projection
+    */
+   List<AuthorizationProjection> findProjectionByResourceAndAuthorizationTypeAndOwnerType(String resource, Integer authorizationType, AuthorizationOwnerType ownerType);
+
+   /**
+    * Check, with a single limit-1 query, if the owner has at least the authorization type
+    * on a resource that start with the prefix; the groups and the root authorizations are not considered
+    * @param owner owner
+    * @param ownerType owner type
+    * @param authorizationType the minimum authorization type, null to not filter
+    * @param resourcePrefix the prefix of the resource, null to not filter
+    * @return true if at least one authorization has been found
+    */
+   boolean existsByOwnerAndAuthorizationTypeAndResourcePrefix(String owner, AuthorizationOwnerType ownerType, Integer authorizationType, String resourcePrefix);
+
+   /**
+    * Stream the authorizations of a resource from a cursor, the stream need to be closed
+    * @param resource resource
+    * @param batchSize the number of authorizations fetched for each round trip
+    * @return the stream of authorizations
+    */
+   Stream<Authorization> streamByResource(String resource, int batchSize);
 }
@@ -1,27 +1,72 @@
 package edu.stanford.slac.ad.eed.base_mongodb_lib.repository;
 
 import com.mongodb.DuplicateKeyException;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.config.CausalSessionScope;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.config.MongoDBProperties;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.config.ReadRouting;
 import edu.stanford.slac.ad.eed.baselib.model.Authorization;
-import lombok.AllArgsConstructor;
+import edu.stanford.slac.ad.eed.baselib.model.AuthorizationOwnerType;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static edu.stanford.slac.ad.eed.baselib.utility.StringUtilities.normalizeStringWithReplace;
 
 @Repository
-@AllArgsConstructor
 public class AuthorizationRepositoryImpl implements AuthorizationRepositoryCustom {
     MongoTemplate mongoTemplate;
+    // used by the permission checks and the listings, routed by the configured read preference
+    MongoTemplate readMongoTemplate;
+    // used by the owner and group lookups that fill the authorization cache
+    MongoTemplate loadMongoTemplate;
+    CausalSessionScope causalSessionScope;
+
+    public AuthorizationRepositoryImpl(MongoTemplate mongoTemplate, MongoDBProperties mongoDBProperties, CausalSessionScope causalSessionScope) {
+        this.mongoTemplate = mongoTemplate;
+        this.readMongoTemplate = ReadRouting.readTemplate(mongoTemplate, mongoDBProperties.getReadRouting());
+        // a load from a lagging secondary, after the invalidation of a write, would be cached for the whole expiry
+        this.loadMongoTemplate = mongoDBProperties.getAuthorizationCache().isEnabled() ? mongoTemplate : readMongoTemplate;
+        this.causalSessionScope = causalSessionScope;
+    }
+
+    /**
+     * Return the template of the reads that tolerate staleness, bound to the causal session if any
+     */
+    private MongoTemplate readTemplate() {
+        // the reads in a transaction need to go to the primary
+        if (TransactionSynchronizationManager.isActualTransactionActive()) return mongoTemplate;
+        return causalSessionScope.bind(readMongoTemplate);
+    }
+
+    /**
+     * Return the template of the lookups that fill the authorization cache, bound to the causal session if any
+     */
+    private MongoTemplate loadTemplate() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) return mongoTemplate;
+        return causalSessionScope.bind(loadMongoTemplate);
+    }
+
+    /**
+     * Return the template of the writes, bound to the causal session if any
+     */
+    private MongoTemplate writeTemplate() {
+        return causalSessionScope.bind(mongoTemplate);
+    }
 
     public String getCurrentAuditor() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -34,6 +79,7 @@ public class AuthorizationRepositoryImpl implements AuthorizationRepositoryCusto
     @Override
     public String ensureAuthorization(Authorization authorization) {
         Authorization authorizationCreated = null;
+        MongoTemplate writeMongoTemplate = writeTemplate();
         Query query = new Query(
                 Criteria.where("owner").is(authorization.getOwner())
                         .and("resource").is(authorization.getResource())
@@ -52,7 +98,7 @@ public class AuthorizationRepositoryImpl implements AuthorizationRepositoryCusto
 
         FindAndModifyOptions options = new FindAndModifyOptions().returnNew(true).upsert(true);
         try {
-            authorizationCreated = mongoTemplate.findAndModify(
+            authorizationCreated = writeMongoTemplate.findAndModify(
                     query,
                     update,
                     options,
@@ -60,8 +106,297 @@ public class AuthorizationRepositoryImpl implements AuthorizationRepositoryCusto
             );
         } catch (DuplicateKeyException e) {
             // The insert failed because the document already exists, so fetch and return it
-            authorizationCreated = mongoTemplate.findOne(query, Authorization.class);
+            authorizationCreated = writeMongoTemplate.findOne(query, Authorization.class);
         }
         return Objects.requireNonNull(authorizationCreated).getId();
     }
+
+    @Override
+    public <S extends Authorization> S save(S authorization) {
+        return writeTemplate().save(authorization);
+    }
+
+    @Override
+    public <S extends Authorization> List<S> saveAll(Iterable<S> authorizations) {
+        MongoTemplate writeMongoTemplate = writeTemplate();
+        List<S> saved = new ArrayList<>();
+        for (S authorization : authorizations) {
+            saved.add(writeMongoTemplate.save(authorization));
+        }
+        return saved;
+    }
+
+    @Override
+    public void delete(Authorization authorization) {
+        writeTemplate().remove(authorization);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        writeTemplate().remove(new Query(Criteria.where("id").is(id)), Authorization.class);
+    }
+
+    @Override
+    public void deleteByOwnerIsAndResourceIsAndAuthorizationTypeIs(String owner, String resource, Integer authorizationType) {
+        writeTemplate().remove(
+                new Query(
+                        Criteria.where("owner").is(owner)
+                                .and("resource").is(resource)
+                                .and("authorizationType").is(authorizationType)
+                ),
+                Authorization.class
+        );
+    }
+
+    @Override
+    public void deleteAllByResourceStartingWith(String resourcePrefix) {
+        writeTemplate().remove(new Query(Criteria.where("resource").regex(prefixRegex(resourcePrefix))), Authorization.class);
+    }
+
+    @Override
+    public void deleteAllByResourceIs(String resource) {
+        writeTemplate().remove(new Query(Criteria.where("resource").is(resource)), Authorization.class);
+    }
+
+    @Override
+    public void deleteAllByOwnerIs(String owner) {
+        writeTemplate().remove(new Query(Criteria.where("owner").is(owner)), Authorization.class);
+    }
+
+    @Override
+    public void deleteAllByResourceStartingWithAndOwnerIsAndOwnerTypeIs(String resourcePrefix, String owner, AuthorizationOwnerType ownerType) {
+        writeTemplate().remove(
+                new Query(
+                        Criteria.where("resource").regex(prefixRegex(resourcePrefix))
+                                .and("owner").is(owner)
+                                .and("ownerType").is(ownerType)
+                ),
+                Authorization.class
+        );
+    }
+
+    @Override
+    public void deleteAllByResourceStartingWithAndOwnerTypeIs(String resourcePrefix, AuthorizationOwnerType ownerType) {
+        writeTemplate().remove(
+                new Query(
+                        Criteria.where("resource").regex(prefixRegex(resourcePrefix))
+                                .and("ownerType").is(ownerType)
+                ),
+                Authorization.class
+        );
+    }
+
+    @Override
+    public List<Authorization> findAllByOwnerAndGroupsAndAuthorizationTypeAndResourcePrefix(String owner, AuthorizationOwnerType ownerType, List<String> groupIds, Integer authorizationType, String resourcePrefix) {
+        return loadTemplate().find(
+                new Query(getOwnerAndGroupsAndAuthorizationTypeAndResourcePrefixCriteria(owner, ownerType, groupIds, authorizationType, resourcePrefix)),
+                Authorization.class
+        );
+    }
+
+    @Override
+    public List<Authorization> findHigherByOwnerAndGroupsAndAuthorizationTypeAndResourcePrefix(String owner, AuthorizationOwnerType ownerType, List<String> groupIds, Integer authorizationType, String resourcePrefix) {
+        return findHigherForEachResource(
+                getOwnerAndGroupsAndAuthorizationTypeAndResourcePrefixCriteria(owner, ownerType, groupIds, authorizationType, resourcePrefix)
+        );
+    }
+
+    @Override
+    public List<Authorization> findAllByOwnerAndResourcePrefixAndGroups(String owner, AuthorizationOwnerType ownerType, String resourcePrefix, List<String> groupIds) {
+        return loadTemplate().find(
+                new Query(getOwnerAndResourcePrefixAndGroupsCriteria(owner, ownerType, resourcePrefix, groupIds)),
+                Authorization.class
+        );
+    }
+
+    @Override
+    public List<Authorization> findHigherByOwnerAndResourcePrefixAndGroups(String owner, AuthorizationOwnerType ownerType, String resourcePrefix, List<String> groupIds) {
+        return findHigherForEachResource(
+                getOwnerAndResourcePrefixAndGroupsCriteria(owner, ownerType, resourcePrefix, groupIds)
+        );
+    }
+
+    @Override
+    public List<AuthorizationProjection> findProjectionByResourceAndOwnerIn(String resource, List<String> owners) {
+        return findProjection(
+                Criteria.where("resource").is(resource).and("owner").in(owners)
+        );
+    }
+
+    @Override
+    public List<AuthorizationProjection> findProjectionByResourceAndAuthorizationTypeAndOwnerType(String resource, Integer authorizationType, AuthorizationOwnerType ownerType) {
+        return findProjection(
+                getResourceAndAuthorizationTypeAndOwnerTypeCriteria(resource, authorizationType, ownerType)
+        );
+    }
+
+    /**
+     * Return the criteria that match the authorizations of a resource with at least the authorization type and the owner type
+     */
+    static Criteria getResourceAndAuthorizationTypeAndOwnerTypeCriteria(String resource, Integer authorizationType, AuthorizationOwnerType ownerType) {
+        return Criteria.where("resource").is(resource)
+                .and("ownerType").is(ownerType)
+                .and("authorizationType").gte(authorizationType);
+    }
+
+    @Override
+    public boolean existsByOwnerAndAuthorizationTypeAndResourcePrefix(String owner, AuthorizationOwnerType ownerType, Integer authorizationType, String resourcePrefix) {
+        return readTemplate().exists(
+                getOwnerExistsQuery(owner, ownerType, authorizationType, resourcePrefix),
+                Authorization.class
+        );
+    }
+
+    /**
+     * Return the limit-1 query that check if the owner itself is authorized, groups and root are not considered
+     */
+    public static Query getOwnerExistsQuery(String owner, AuthorizationOwnerType ownerType, Integer authorizationType, String resourcePrefix) {
+        Criteria criteria = Criteria.where("owner").is(owner).and("ownerType").is(ownerType);
+        if (authorizationType != null) {
+            criteria.and("authorizationType").gte(authorizationType);
+        }
+        if (resourcePrefix != null) {
+            criteria.and("resource").regex(prefixRegex(resourcePrefix));
+        }
+        return new Query(criteria).limit(1);
+    }
+
+    /**
+     * Return the limit-1 query that check if the owner, one of his groups or a root authorization grant the access
+     */
+    public static Query getExistsQuery(String owner, AuthorizationOwnerType ownerType, List<String> groupIds, Integer authorizationType, String resourcePrefix) {
+        // every branch start with an equality on owner and owner type, so all of them use the owner compound index
+        List<Criteria> branches = new ArrayList<>();
+        for (Criteria criteria : getOwnerCriteria(owner, ownerType, groupIds)) {
+            if (authorizationType != null) {
+                criteria.and("authorizationType").gte(authorizationType);
+            }
+            if (resourcePrefix != null) {
+                criteria.and("resource").regex(prefixRegex(resourcePrefix));
+            }
+            branches.add(criteria);
+        }
+        if (resourcePrefix != null) {
+            // root authorization grant all the resources
+            for (Criteria criteria : getOwnerCriteria(owner, ownerType, groupIds)) {
+                branches.add(
+                        criteria.and("resource").is("*")
+                                .and("authorizationType").gte(Authorization.Type.Admin.getValue())
+                );
+            }
+        }
+        return new Query(new Criteria().orOperator(branches)).limit(1);
+    }
+
+    /**
+     * Return the criteria that match the owner and the groups authorizations filtered by type and prefix
+     */
+    public static Criteria getOwnerAndGroupsAndAuthorizationTypeAndResourcePrefixCriteria(String owner, AuthorizationOwnerType ownerType, List<String> groupIds, Integer authorizationType, String resourcePrefix) {
+        Criteria criteria = new Criteria().orOperator(getOwnerCriteria(owner, ownerType, groupIds));
+        if (authorizationType != null) {
+            criteria.and("authorizationType").gte(authorizationType);
+        }
+        if (resourcePrefix != null) {
+            criteria.and("resource").regex(prefixRegex(resourcePrefix));
+        }
+        return criteria;
+    }
+
+    /**
+     * Return one criteria for the owner and, if any, one for all his groups
+     */
+    private static List<Criteria> getOwnerCriteria(String owner, AuthorizationOwnerType ownerType, List<String> groupIds) {
+        List<Criteria> ownerCriteria = new ArrayList<>();
+        ownerCriteria.add(Criteria.where("owner").is(owner).and("ownerType").is(ownerType));
+        if (groupIds != null && !groupIds.isEmpty()) {
+            ownerCriteria.add(Criteria.where("owner").in(groupIds).and("ownerType").is(AuthorizationOwnerType.Group));
+        }
+        return ownerCriteria;
+    }
+
+    /**
+     * Return the criteria that match the owner authorizations filtered by prefix and all the groups authorizations
+     */
+    public static Criteria getOwnerAndResourcePrefixAndGroupsCriteria(String owner, AuthorizationOwnerType ownerType, String resourcePrefix, List<String> groupIds) {
+        List<Criteria> ownerCriteria = new ArrayList<>();
+        Criteria userCriteria = Criteria.where("owner").is(owner).and("ownerType").is(ownerType);
+        if (resourcePrefix != null) {
+            userCriteria.and("resource").regex(prefixRegex(resourcePrefix));
+        }
+        ownerCriteria.add(userCriteria);
+        if (groupIds != null && !groupIds.isEmpty()) {
+            // group authorizations are inherited for all the resources
+            ownerCriteria.add(Criteria.where("owner").in(groupIds).and("ownerType").is(AuthorizationOwnerType.Group));
+        }
+        return new Criteria().orOperator(ownerCriteria);
+    }
+
+    /**
+     * Return, for each resource, only the authorization with the higher type
+     *
+     * @param criteria the criteria that select the authorizations
+     * @return one authorization for each resource
+     */
+    private List<Authorization> findHigherForEachResource(Criteria criteria) {
+        return loadTemplate().aggregate(getHigherForEachResourceAggregation(criteria), Authorization.class, Authorization.class).getMappedResults();
+    }
+
+    /**
+     * Return the aggregation that keep, for each resource, only the authorization with the higher type
+     */
+    public static Aggregation getHigherForEachResourceAggregation(Criteria criteria) {
+        return Aggregation.newAggregation(
+                Aggregation.match(criteria),
+                Aggregation.sort(Sort.Direction.DESC, "authorizationType"),
+                Aggregation.group("resource").first(Aggregation.ROOT).as("authorization"),
+                Aggregation.replaceRoot("authorization")
+        );
+    }
+
+    @Override
+    public Stream<Authorization> streamByResource(String resource, int batchSize) {
+        Query query = new Query(Criteria.where("resource").is(resource)).cursorBatchSize(batchSize);
+        return readTemplate().stream(query, Authorization.class);
+    }
+
+    /**
+     * Return only the indexed fields, excluding the id, so the query can be covered by the index
+     *
+     * @param criteria the criteria that select the authorizations
+     * @return the authorizations projection
+     */
+    private List<AuthorizationProjection> findProjection(Criteria criteria) {
+        return readTemplate().query(Authorization.class)
+                .as(AuthorizationProjection.class)
+                .matching(getProjectionQuery(criteria))
+                .all();
+    }
+
+    /**
+     * Return the query that select the authorizations projected on the indexed fields
+     */
+    static Query getProjectionQuery(Criteria criteria) {
+        Query query = new Query(criteria);
+        query.fields()
+                .include("owner", "ownerType", "resource", "authorizationType")
+                .exclude("id");
+        return query;
+    }
+
+    /**
+     * Return a left-anchored regex that match all the string that start with the prefix
+     *
+     * @param prefix the prefix
+     * @return the regex
+     */
+    static String prefixRegex(String prefix) {
+        StringBuilder regex = new StringBuilder("^");
+        for (char c : prefix.toCharArray()) {
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != ' ') {
+                regex.append('\\');
+            }
+            regex.append(c);
+        }
+        return regex.toString();
+    }
 }
@@ -0,0 +1,51 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.repository;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * The position of the last element of a page ordered by (createdDate, id), encoded as an opaque string.
+ * The id break the tie between elements created at the same time, so the pages never skip or repeat an element.
+ *
+ * @param createdDate the creation date of the last element
+ * @param id          the id of the last element
+ */
+public record KeysetCursor(LocalDateTime createdDate, String id) {
+    private static final String SEPARATOR = "|";
+
+    /**
+     * @return the opaque string representation of the cursor
+     */
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(
+                (createdDate.toString() + SEPARATOR + id).getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    /**
+     * Decode an opaque cursor
+     *
+     * @param cursor the cursor returned by a previous page
+     * @return the decoded cursor
+     */
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = decoded.indexOf(SEPARATOR);
+            return new KeysetCursor(
+                    LocalDateTime.parse(decoded.substring(0, separatorIndex)),
+                    decoded.substring(separatorIndex + 1)
+            );
+        } catch (RuntimeException e) {
+            throw ControllerLogicException
+                    .builder()
+                    .errorCode(-1)
+                    .errorMessage("The cursor is not valid")
+                    .errorDomain("KeysetCursor::decode")
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.repository;
+
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * A page of a keyset pagination
+ *
+ * @param content    the elements of the page
+ * @param nextCursor the cursor of the next page, null if there are no more elements
+ */
+@Builder
+public record KeysetPage<T>(List<T> content, String nextCursor) {
+}
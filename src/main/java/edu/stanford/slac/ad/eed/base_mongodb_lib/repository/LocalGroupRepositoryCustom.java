@@ -7,4 +7,26 @@ import java.util.List;
 
 public interface LocalGroupRepositoryCustom {
     List<LocalGroup> findAll(LocalGroupQueryParameter queryLocalGroup);
+
+    // the writes are implemented here, in place of the crud ones, to go through the causal session if any
+
+    /**
+     * Save a local group
+     * @param localGroup the local group to save
+     * @return the saved local group
+     */
+    <S extends LocalGroup> S save(S localGroup);
+
+    /**
+     * Save all the local groups
+     * @param localGroups the local groups to save
+     * @return the saved local groups
+     */
+    <S extends LocalGroup> List<S> saveAll(Iterable<S> localGroups);
+
+    /**
+     * Delete a local group by id
+     * @param id the local group id
+     */
+    void deleteById(String id);
 }
@@ -1,5 +1,7 @@
 package edu.stanford.slac.ad.eed.base_mongodb_lib.repository;
 
+import edu.stanford.slac.ad.eed.base_mongodb_lib.config.CausalSessionScope;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.config.MongoDBProperties;
 import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
 import edu.stanford.slac.ad.eed.baselib.model.LocalGroup;
 import edu.stanford.slac.ad.eed.baselib.model.LocalGroupQueryParameter;
@@ -21,6 +23,28 @@ import java.util.List;
 @AllArgsConstructor
 public class LocalGroupRepositoryImpl implements LocalGroupRepositoryCustom {
     private final MongoTemplate mongoTemplate;
+    private final MongoDBProperties mongoDBProperties;
+    private final CausalSessionScope causalSessionScope;
+
+    @Override
+    public <S extends LocalGroup> S save(S localGroup) {
+        return causalSessionScope.bind(mongoTemplate).save(localGroup);
+    }
+
+    @Override
+    public <S extends LocalGroup> List<S> saveAll(Iterable<S> localGroups) {
+        MongoTemplate writeMongoTemplate = causalSessionScope.bind(mongoTemplate);
+        List<S> saved = new ArrayList<>();
+        for (S localGroup : localGroups) {
+            saved.add(writeMongoTemplate.save(localGroup));
+        }
+        return saved;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        causalSessionScope.bind(mongoTemplate).remove(new Query(Criteria.where("id").is(id)), LocalGroup.class);
+    }
 
     @Override
     public List<LocalGroup> findAll(LocalGroupQueryParameter queryParameter) {
@@ -37,11 +61,26 @@ public class LocalGroupRepositoryImpl implements LocalGroupRepositoryCustom {
                     .build();
         }
 
-        // all the criteria
-        List<Criteria> allCriteria = new ArrayList<>();
         LocalDateTime anchorCreatedDate = queryParameter.getAnchorID() != null?getAnchorCreatedDate(queryParameter.getAnchorID()):null;
-        List<LocalGroup> elementsBeforeAnchor = contextSearch(queryParameter, anchorCreatedDate, allCriteria);
-        List<LocalGroup> elementsAfterAnchor =  limitSearch(queryParameter, anchorCreatedDate, allCriteria);
+        if (
+                mongoDBProperties.getWindowedSearch().isEnabled() &&
+                        WindowedSearch.isApplicable(queryParameter.getSearch()) &&
+                        anchorCreatedDate != null &&
+                        queryParameter.getContextSize() != null && queryParameter.getContextSize() > 0 &&
+                        queryParameter.getLimit() != null && queryParameter.getLimit() > 0
+        ) {
+            // context and limit slices in a single round trip
+            return WindowedSearch.find(
+                    mongoTemplate,
+                    LocalGroup.class,
+                    anchorCreatedDate,
+                    queryParameter.getContextSize(),
+                    queryParameter.getLimit()
+            );
+        }
+        // each slice has its own criteria
+        List<LocalGroup> elementsBeforeAnchor = contextSearch(queryParameter, anchorCreatedDate, new ArrayList<>());
+        List<LocalGroup> elementsAfterAnchor =  limitSearch(queryParameter, anchorCreatedDate, new ArrayList<>());
         elementsBeforeAnchor.addAll(elementsAfterAnchor);
         return elementsBeforeAnchor;
     }
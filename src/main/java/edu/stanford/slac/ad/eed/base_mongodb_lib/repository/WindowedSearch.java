@@ -0,0 +1,72 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.UnionWithOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Search the elements before and after an anchor with a single aggregation.
+ * <p>
+ * Each slice is a $match, $sort and $limit on the creation date, so both of them walk the creation date
+ * index, and the slice after the anchor is appended by a $unionWith stage. The context and the limit of an
+ * anchored search cost one round trip instead of two. The full text search cannot be used in the
+ * $unionWith sub-pipeline, so the searches with a text filter keep the two queries.
+ */
+final class WindowedSearch {
+    private WindowedSearch() {
+    }
+
+    /**
+     * Check if a search can be done as a window
+     *
+     * @param search the optional full text search
+     * @return true if there isn't a text filter
+     */
+    static boolean isApplicable(String search) {
+        return search == null || search.isEmpty();
+    }
+
+    /**
+     * Find the window of elements around the anchor
+     *
+     * @param mongoTemplate     the template to use
+     * @param domainClass       the class of the collection elements
+     * @param anchorCreatedDate the creation date of the anchor
+     * @param contextSize       the number of elements up to the anchor (included)
+     * @param limit             the number of elements after the anchor
+     * @return the elements ordered by creation date
+     */
+    static <T> List<T> find(
+            MongoTemplate mongoTemplate,
+            Class<T> domainClass,
+            LocalDateTime anchorCreatedDate,
+            int contextSize,
+            int limit
+    ) {
+        return mongoTemplate.aggregate(
+                Aggregation.newAggregation(
+                        domainClass,
+                        // the context is fetched in descending order from the anchor
+                        Aggregation.match(Criteria.where("createdDate").lte(anchorCreatedDate)),
+                        Aggregation.sort(Sort.by(Sort.Direction.DESC, "createdDate")),
+                        Aggregation.limit(contextSize),
+                        UnionWithOperation
+                                .unionWith(mongoTemplate.getCollectionName(domainClass))
+                                .pipeline(
+                                        Aggregation.match(Criteria.where("createdDate").gt(anchorCreatedDate)),
+                                        Aggregation.sort(Sort.by(Sort.Direction.ASC, "createdDate")),
+                                        Aggregation.limit(limit)
+                                )
+                                .mapFieldsTo(domainClass),
+                        // only the elements of the window are sorted
+                        Aggregation.sort(Sort.by(Sort.Direction.ASC, "createdDate"))
+                ),
+                domainClass
+        ).getMappedResults();
+    }
+}
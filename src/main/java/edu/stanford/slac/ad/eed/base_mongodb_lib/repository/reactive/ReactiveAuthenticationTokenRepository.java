@@ -0,0 +1,18 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.repository.reactive;
+
+import edu.stanford.slac.ad.eed.baselib.model.AuthenticationToken;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking access to the authentication tokens, enabled only when the reactive support is configured
+ */
+public interface ReactiveAuthenticationTokenRepository extends ReactiveMongoRepository<AuthenticationToken, String> {
+    /**
+     * Find the authentication token with the email
+     *
+     * @param email the email of the token
+     * @return the token, empty if not found
+     */
+    Mono<AuthenticationToken> findByEmailIs(String email);
+}
@@ -0,0 +1,17 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.repository.reactive;
+
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking access to the authorizations, enabled only when the reactive support is configured
+ */
+public interface ReactiveAuthorizationRepository extends ReactiveMongoRepository<Authorization, String>, ReactiveAuthorizationRepositoryCustom {
+    /**
+     * Find all authorizations for a given resource
+     * @param resource the resource
+     * @return the authorizations
+     */
+    Flux<Authorization> findByResourceIs(String resource);
+}
@@ -0,0 +1,75 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.repository.reactive;
+
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.ad.eed.baselib.model.AuthorizationOwnerType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface ReactiveAuthorizationRepositoryCustom {
+   /**
+    * Find, with a single query, the authorizations of the owner and of his groups
+    * @param owner owner
+    * @param ownerType owner type
+    * @param groupIds the groups the owner belongs to
+    * @param authorizationType the minimum authorization type, null to not filter
+    * @param resourcePrefix the prefix of the resource, null to not filter
+    * @return the authorizations
+    */
+   Flux<Authorization> findAllByOwnerAndGroupsAndAuthorizationTypeAndResourcePrefix(String owner, AuthorizationOwnerType ownerType, List<String> groupIds, Integer authorizationType, String resourcePrefix);
+
+   /**
+    * Find, with a single aggregation, the higher authorization for each resource of the owner and of his groups
+    * @param owner owner
+    * @param ownerType owner type
+    * @param groupIds the groups the owner belongs to
+    * @param authorizationType the minimum authorization type, null to not filter
+    * @param resourcePrefix the prefix of the resource, null to not filter
+    * @return one authorization for each resource
+    */
+   Flux<Authorization> findHigherByOwnerAndGroupsAndAuthorizationTypeAndResourcePrefix(String owner, AuthorizationOwnerType ownerType, List<String> groupIds, Integer authorizationType, String resourcePrefix);
+
+   /**
+    * Find the authorizations of the owner filtered by prefix along with all the authorizations of his groups
+    * @param owner owner
+    * @param ownerType owner type
+    * @param resourcePrefix the prefix of the resource, null to not filter
+    * @param groupIds the groups the owner belongs to
+    * @return the authorizations
+    */
+   Flux<Authorization> findAllByOwnerAndResourcePrefixAndGroups(String owner, AuthorizationOwnerType ownerType, String resourcePrefix, List<String> groupIds);
+
+   /**
+    * Find the higher authorization for each resource of the owner, filtered by prefix, and of his groups
+    * @param owner owner
+    * @param ownerType owner type
+    * @param resourcePrefix the prefix of the resource, null to not filter
+    * @param groupIds the groups the owner belongs to
+    * @return one authorization for each resource
+    */
+   Flux<Authorization> findHigherByOwnerAndResourcePrefixAndGroups(String owner, AuthorizationOwnerType ownerType, String resourcePrefix, List<String> groupIds);
+
+   /**
+    * Check, with a single limit-1 query, if the owner or one of his groups has at least the authorization type
+    * on a resource that start with the prefix, or is root (admin on all the resources)
+    * @param owner owner
+    * @param ownerType owner type
+    * @param groupIds the groups the owner belongs to
+    * @param authorizationType the minimum authorization type, null to not filter
+    * @param resourcePrefix the prefix of the resource, null to not filter
+    * @return true if at least one authorization has been found
+    */
+   Mono<Boolean> existsByOwnerAndGroupsAndAuthorizationTypeAndResourcePrefix(String owner, AuthorizationOwnerType ownerType, List<String> groupIds, Integer authorizationType, String resourcePrefix);
+
+   /**
+    * Check, with a single limit-1 query, if the owner has at least the authorization type
+    * on a resource that start with the prefix; the groups and the root authorizations are not considered
+    * @param owner owner
+    * @param ownerType owner type
+    * @param authorizationType the minimum authorization type, null to not filter
+    * @param resourcePrefix the prefix of the resource, null to not filter
+    * @return true if at least one authorization has been found
+    */
+   Mono<Boolean> existsByOwnerAndAuthorizationTypeAndResourcePrefix(String owner, AuthorizationOwnerType ownerType, Integer authorizationType, String resourcePrefix);
+}
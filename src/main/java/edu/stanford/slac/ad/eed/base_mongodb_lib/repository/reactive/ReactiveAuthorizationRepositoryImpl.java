@@ -0,0 +1,81 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.repository.reactive;
+
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.ad.eed.baselib.model.AuthorizationOwnerType;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.repository.AuthorizationRepositoryImpl;
+import lombok.AllArgsConstructor;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static edu.stanford.slac.ad.eed.base_mongodb_lib.repository.AuthorizationRepositoryImpl.getExistsQuery;
+import static edu.stanford.slac.ad.eed.base_mongodb_lib.repository.AuthorizationRepositoryImpl.getHigherForEachResourceAggregation;
+import static edu.stanford.slac.ad.eed.base_mongodb_lib.repository.AuthorizationRepositoryImpl.getOwnerAndGroupsAndAuthorizationTypeAndResourcePrefixCriteria;
+import static edu.stanford.slac.ad.eed.base_mongodb_lib.repository.AuthorizationRepositoryImpl.getOwnerAndResourcePrefixAndGroupsCriteria;
+import static edu.stanford.slac.ad.eed.base_mongodb_lib.repository.AuthorizationRepositoryImpl.getOwnerExistsQuery;
+
+/**
+ * Run the same queries of {@link AuthorizationRepositoryImpl} with the reactive driver.
+ * It is not a component, it is registered only when the reactive repositories are enabled
+ */
+@AllArgsConstructor
+public class ReactiveAuthorizationRepositoryImpl implements ReactiveAuthorizationRepositoryCustom {
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Flux<Authorization> findAllByOwnerAndGroupsAndAuthorizationTypeAndResourcePrefix(String owner, AuthorizationOwnerType ownerType, List<String> groupIds, Integer authorizationType, String resourcePrefix) {
+        return reactiveMongoTemplate.find(
+                new Query(getOwnerAndGroupsAndAuthorizationTypeAndResourcePrefixCriteria(owner, ownerType, groupIds, authorizationType, resourcePrefix)),
+                Authorization.class
+        );
+    }
+
+    @Override
+    public Flux<Authorization> findHigherByOwnerAndGroupsAndAuthorizationTypeAndResourcePrefix(String owner, AuthorizationOwnerType ownerType, List<String> groupIds, Integer authorizationType, String resourcePrefix) {
+        return reactiveMongoTemplate.aggregate(
+                getHigherForEachResourceAggregation(
+                        getOwnerAndGroupsAndAuthorizationTypeAndResourcePrefixCriteria(owner, ownerType, groupIds, authorizationType, resourcePrefix)
+                ),
+                Authorization.class,
+                Authorization.class
+        );
+    }
+
+    @Override
+    public Flux<Authorization> findAllByOwnerAndResourcePrefixAndGroups(String owner, AuthorizationOwnerType ownerType, String resourcePrefix, List<String> groupIds) {
+        return reactiveMongoTemplate.find(
+                new Query(getOwnerAndResourcePrefixAndGroupsCriteria(owner, ownerType, resourcePrefix, groupIds)),
+                Authorization.class
+        );
+    }
+
+    @Override
+    public Flux<Authorization> findHigherByOwnerAndResourcePrefixAndGroups(String owner, AuthorizationOwnerType ownerType, String resourcePrefix, List<String> groupIds) {
+        return reactiveMongoTemplate.aggregate(
+                getHigherForEachResourceAggregation(
+                        getOwnerAndResourcePrefixAndGroupsCriteria(owner, ownerType, resourcePrefix, groupIds)
+                ),
+                Authorization.class,
+                Authorization.class
+        );
+    }
+
+    @Override
+    public Mono<Boolean> existsByOwnerAndGroupsAndAuthorizationTypeAndResourcePrefix(String owner, AuthorizationOwnerType ownerType, List<String> groupIds, Integer authorizationType, String resourcePrefix) {
+        return reactiveMongoTemplate.exists(
+                getExistsQuery(owner, ownerType, groupIds, authorizationType, resourcePrefix),
+                Authorization.class
+        );
+    }
+
+    @Override
+    public Mono<Boolean> existsByOwnerAndAuthorizationTypeAndResourcePrefix(String owner, AuthorizationOwnerType ownerType, Integer authorizationType, String resourcePrefix) {
+        return reactiveMongoTemplate.exists(
+                getOwnerExistsQuery(owner, ownerType, authorizationType, resourcePrefix),
+                Authorization.class
+        );
+    }
+}
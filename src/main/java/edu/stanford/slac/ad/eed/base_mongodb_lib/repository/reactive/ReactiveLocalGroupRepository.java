@@ -0,0 +1,13 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.repository.reactive;
+
+import edu.stanford.slac.ad.eed.baselib.model.LocalGroup;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking access to the local groups, enabled only when the reactive support is configured
+ */
+public interface ReactiveLocalGroupRepository extends ReactiveMongoRepository<LocalGroup, String> {
+
+    Flux<LocalGroup> findAllByMembersContains(String userId);
+}
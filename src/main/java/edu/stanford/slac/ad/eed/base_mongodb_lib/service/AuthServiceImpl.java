@@ -1,7 +1,14 @@
 package edu.stanford.slac.ad.eed.base_mongodb_lib.service;
 
+import edu.stanford.slac.ad.eed.base_mongodb_lib.cache.AuthenticationTokenIdCache;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.cache.AuthorizationCache;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.cache.AuthorizationCache.ResolvedAuthorizations;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.cache.GroupMembershipCache;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.config.MongoDBProperties;
 import edu.stanford.slac.ad.eed.base_mongodb_lib.repository.AuthenticationTokenRepository;
 import edu.stanford.slac.ad.eed.base_mongodb_lib.repository.AuthorizationRepository;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.repository.AuthorizationProjection;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.repository.KeysetPage;
 import edu.stanford.slac.ad.eed.base_mongodb_lib.repository.LocalGroupRepository;
 import edu.stanford.slac.ad.eed.baselib.api.v1.dto.*;
 import edu.stanford.slac.ad.eed.baselib.api.v1.mapper.AuthMapper;
@@ -24,9 +31,12 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO.Admin;
 import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
@@ -49,6 +59,12 @@ public class AuthServiceImpl extends AuthService {
     private final LocalGroupRepository localGroupRepository;
     private final AuthorizationRepository authorizationRepository;
     private final AuthenticationTokenRepository authenticationTokenRepository;
+    private final AuthorizationCache authorizationCache;
+    private final AuthenticationTokenIdCache authenticationTokenIdCache;
+    private final GroupMembershipCache groupMembershipCache;
+    private final AuthorizationLookupExecutor authorizationLookupExecutor;
+    private final MongoDBProperties mongoDBProperties;
+    private final AuthServiceMetrics authServiceMetrics;
 
     /**
      * Constructor
@@ -59,8 +75,14 @@ public class AuthServiceImpl extends AuthService {
      * @param peopleGroupService            the people group service
      * @param authorizationRepository       the authorization repository
      * @param authenticationTokenRepository the authentication token repository
+     * @param authorizationCache            the effective permission cache
+     * @param authenticationTokenIdCache    the token email to id cache
+     * @param groupMembershipCache          the ldap group membership cache
+     * @param authorizationLookupExecutor   the executor of the parallel lookups
+     * @param mongoDBProperties             the mongodb library properties
+     * @param authServiceMetrics            the timers of the permission checks
      */
-    public AuthServiceImpl(JWTHelper jwtHelper, LocalGroupMapper localGroupMapper, AuthMapper authMapper, AppProperties appProperties, PeopleGroupService peopleGroupService, LocalGroupRepository localGroupRepository, AuthorizationRepository authorizationRepository, AuthenticationTokenRepository authenticationTokenRepository) {
+    public AuthServiceImpl(JWTHelper jwtHelper, LocalGroupMapper localGroupMapper, AuthMapper authMapper, AppProperties appProperties, PeopleGroupService peopleGroupService, LocalGroupRepository localGroupRepository, AuthorizationRepository authorizationRepository, AuthenticationTokenRepository authenticationTokenRepository, AuthorizationCache authorizationCache, AuthenticationTokenIdCache authenticationTokenIdCache, GroupMembershipCache groupMembershipCache, AuthorizationLookupExecutor authorizationLookupExecutor, MongoDBProperties mongoDBProperties, AuthServiceMetrics authServiceMetrics) {
         super(appProperties);
         this.jwtHelper = jwtHelper;
         this.localGroupMapper = localGroupMapper;
@@ -70,6 +92,12 @@ public class AuthServiceImpl extends AuthService {
         this.localGroupRepository = localGroupRepository;
         this.authorizationRepository = authorizationRepository;
         this.authenticationTokenRepository = authenticationTokenRepository;
+        this.authorizationCache = authorizationCache;
+        this.authenticationTokenIdCache = authenticationTokenIdCache;
+        this.groupMembershipCache = groupMembershipCache;
+        this.authorizationLookupExecutor = authorizationLookupExecutor;
+        this.mongoDBProperties = mongoDBProperties;
+        this.authServiceMetrics = authServiceMetrics;
     }
 
     /**
@@ -83,6 +111,8 @@ public class AuthServiceImpl extends AuthService {
                     authorizationRepository.deleteAllByResourceStartingWith(
                             resourcePrefix
                     );
+                    // the owners of the deleted authorizations are unknown
+                    authorizationCache.invalidateAll();
                     return null;
                 },
                 -1,
@@ -99,6 +129,7 @@ public class AuthServiceImpl extends AuthService {
                             ownerId,
                             authMapper.toModel(ownerType)
                     );
+                    invalidateCachedOwner(ownerId, authMapper.toModel(ownerType));
                     return null;
                 },
                 -1,
@@ -114,6 +145,7 @@ public class AuthServiceImpl extends AuthService {
                             resourcePrefix,
                             authMapper.toModel(ownerType)
                     );
+                    authorizationCache.invalidateAll();
                     return null;
                 },
                 -1,
@@ -132,6 +164,7 @@ public class AuthServiceImpl extends AuthService {
                     authorizationRepository.deleteAllByResourceIs(
                             resource
                     );
+                    authorizationCache.invalidateAll();
                     return null;
                 },
                 -1,
@@ -164,142 +197,172 @@ public class AuthServiceImpl extends AuthService {
      */
     @Override
     public List<AuthorizationDTO> getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(String ownerId, AuthorizationTypeDTO authorizationType, String resourcePrefix, Optional<Boolean> allHigherAuthOnSameResource, Optional<Boolean> includeGroupForUser) {
-        String realOwnerId = returnRealId(ownerId);
-        // get user authorizations
-        List<AuthorizationDTO> allAuth = new ArrayList<>(
-                wrapCatch(
-                        () -> authorizationRepository.findByOwnerAndOwnerTypeAndAuthorizationTypeIsGreaterThanEqualAndResourceStartingWith(
-                                realOwnerId,
-                                realOwnerId.contains("@") ? AuthorizationOwnerType.User:AuthorizationOwnerType.Token,
-                                authMapper.toModel(authorizationType).getValue(),
-                                resourcePrefix
-                        ),
+        return authServiceMetrics.recordMethod(
+                "getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix",
+                () -> authorizationCache.get(
+                        AuthorizationCache.key("getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix", ownerId, authorizationType, resourcePrefix, allHigherAuthOnSameResource, includeGroupForUser),
+                        () -> loadAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(ownerId, authorizationType, resourcePrefix, allHigherAuthOnSameResource, includeGroupForUser)
+                )
+        );
+    }
+
+    /**
+     * Load from the database all the authorizations for an owner that match with the prefix
+     * and the authorizations type
+     */
+    private ResolvedAuthorizations loadAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(String ownerId, AuthorizationTypeDTO authorizationType, String resourcePrefix, Optional<Boolean> allHigherAuthOnSameResource, Optional<Boolean> includeGroupForUser) {
+        // in case of inheritance get also the groups where the user belongs
+        ResolvedOwner resolvedOwner = resolveOwner(ownerId, includeGroupForUser.isPresent() && includeGroupForUser.get().booleanValue());
+        String realOwnerId = resolvedOwner.realOwnerId();
+        List<String> userGroups = resolvedOwner.groups();
+        AuthorizationOwnerType ownerType = realOwnerId.contains("@") ? AuthorizationOwnerType.User:AuthorizationOwnerType.Token;
+        Integer minAuthorizationType = authMapper.toModel(authorizationType).getValue();
+        // get user and groups authorizations with a single query, the server keep only the higher for each resource if requested
+        List<Authorization> foundAuth = authServiceMetrics.recordStage(
+                "authorization-lookup",
+                () -> wrapCatch(
+                        () -> allHigherAuthOnSameResource.orElse(false) ?
+                                authorizationRepository.findHigherByOwnerAndGroupsAndAuthorizationTypeAndResourcePrefix(
+                                        realOwnerId,
+                                        ownerType,
+                                        userGroups,
+                                        minAuthorizationType,
+                                        resourcePrefix
+                                ) :
+                                authorizationRepository.findAllByOwnerAndGroupsAndAuthorizationTypeAndResourcePrefix(
+                                        realOwnerId,
+                                        ownerType,
+                                        userGroups,
+                                        minAuthorizationType,
+                                        resourcePrefix
+                                ),
                         -1,
                         "AuthService::getAllAuthorization"
-                ).stream().map(
-                        authMapper::fromModel
-                ).toList()
+                )
         );
-
-        // get user authorizations inherited by group
-        if (includeGroupForUser.isPresent() && includeGroupForUser.get().booleanValue()) {
-            getAuthByGroupInheritance(realOwnerId, allAuth);
-        }
-        if (allHigherAuthOnSameResource.isPresent() && allHigherAuthOnSameResource.get()) {
-            allAuth = allAuth.stream()
-                    .collect(
-                            Collectors.toMap(
-                                    AuthorizationDTO::resource,
-                                    auth -> auth,
-                                    (existing, replacement) ->
-
-                                            authMapper.toModel(existing.authorizationType()).getValue() >= authMapper.toModel(replacement.authorizationType()).getValue() ? existing : replacement
-                            ))
-                    .values().stream().toList();
-        }
-        return allAuth;
+        List<AuthorizationDTO> allAuth = authServiceMetrics.recordStage("reduction", () -> toAuthorizationDTOs(foundAuth));
+        return ResolvedAuthorizations.builder()
+                .owners(new HashSet<>(List.of(ownerId, realOwnerId)))
+                .groups(new HashSet<>(userGroups))
+                .authorizations(allAuth)
+                .build();
     }
 
     @Override
     public List<AuthorizationDTO> getAllAuthenticationForOwner(String owner, AuthorizationOwnerTypeDTO ownerType, String resourcePrefix, Optional<Boolean> allHigherAuthOnSameResource) {
-        // get user authorizations
-        List<AuthorizationDTO> allAuth = new ArrayList<>(
-                wrapCatch(
-                        () -> authorizationRepository.findByOwnerAndOwnerTypeIsAndResourceStartingWith(
-                                owner,
-                                authMapper.toModel(ownerType),
-                                resourcePrefix
-                        ),
+        return authServiceMetrics.recordMethod(
+                "getAllAuthenticationForOwnerAndResourcePrefix",
+                () -> authorizationCache.get(
+                        AuthorizationCache.key("getAllAuthenticationForOwnerAndResourcePrefix", owner, ownerType, resourcePrefix, allHigherAuthOnSameResource),
+                        () -> loadAllAuthenticationForOwner(owner, ownerType, resourcePrefix, allHigherAuthOnSameResource)
+                )
+        );
+    }
+
+    /**
+     * Load from the database all the authorizations for an owner, and his groups, that match with the prefix
+     */
+    private ResolvedAuthorizations loadAllAuthenticationForOwner(String owner, AuthorizationOwnerTypeDTO ownerType, String resourcePrefix, Optional<Boolean> allHigherAuthOnSameResource) {
+        // get the groups where the user belongs
+        List<String> userGroups = getGroupByUserId(owner);
+        // get user authorizations and the ones inherited by group with a single query, the server keep only the higher for each resource if requested
+        List<Authorization> foundAuth = authServiceMetrics.recordStage(
+                "authorization-lookup",
+                () -> wrapCatch(
+                        () -> allHigherAuthOnSameResource.orElse(false) ?
+                                authorizationRepository.findHigherByOwnerAndResourcePrefixAndGroups(
+                                        owner,
+                                        authMapper.toModel(ownerType),
+                                        resourcePrefix,
+                                        userGroups
+                                ) :
+                                authorizationRepository.findAllByOwnerAndResourcePrefixAndGroups(
+                                        owner,
+                                        authMapper.toModel(ownerType),
+                                        resourcePrefix,
+                                        userGroups
+                                ),
                         -1,
                         "AuthService::getAllAuthorization"
-                ).stream().map(
-                        authMapper::fromModel
-                ).toList()
+                )
         );
-
-        // get user authorizations inherited by group
-        getAuthByGroupInheritance(owner, allAuth);
-
-        if (allHigherAuthOnSameResource.isPresent() && allHigherAuthOnSameResource.get()) {
-            allAuth = allAuth.stream()
-                    .collect(
-                            Collectors.toMap(
-                                    AuthorizationDTO::resource,
-                                    auth -> auth,
-                                    (existing, replacement) ->
-
-                                            authMapper.toModel(existing.authorizationType()).getValue() >= authMapper.toModel(replacement.authorizationType()).getValue() ? existing : replacement
-                            ))
-                    .values().stream().toList();
-        }
-        return allAuth;
+        List<AuthorizationDTO> allAuth = authServiceMetrics.recordStage("reduction", () -> toAuthorizationDTOs(foundAuth));
+        return ResolvedAuthorizations.builder()
+                .owners(Set.of(owner))
+                .groups(new HashSet<>(userGroups))
+                .authorizations(allAuth)
+                .build();
     }
 
     @Override
     public List<AuthorizationDTO> getAllAuthenticationForOwner(String owner, AuthorizationOwnerTypeDTO ownerType, Optional<Boolean> allHigherAuthOnSameResource, Optional<Boolean> includeInherited) {
-        // get user authorizations
-        List<AuthorizationDTO> allAuth = new ArrayList<>(
-                wrapCatch(
-                        () -> authorizationRepository.findByOwnerAndOwnerTypeIs(
-                                owner,
-                                authMapper.toModel(ownerType)
-                        ),
+        return authServiceMetrics.recordMethod(
+                "getAllAuthenticationForOwner",
+                () -> authorizationCache.get(
+                        AuthorizationCache.key("getAllAuthenticationForOwner", owner, ownerType, allHigherAuthOnSameResource, includeInherited),
+                        () -> loadAllAuthenticationForOwner(owner, ownerType, allHigherAuthOnSameResource, includeInherited)
+                )
+        );
+    }
+
+    /**
+     * Load from the database all the authorizations for an owner and, if requested, his groups
+     */
+    private ResolvedAuthorizations loadAllAuthenticationForOwner(String owner, AuthorizationOwnerTypeDTO ownerType, Optional<Boolean> allHigherAuthOnSameResource, Optional<Boolean> includeInherited) {
+        // in case of inheritance get also the groups where the user belongs
+        List<String> userGroups = includeInherited.isPresent() && includeInherited.get() ?
+                getGroupByUserId(owner) :
+                List.of();
+        // get user authorizations and the ones inherited by group with a single query, the server keep only the higher for each resource if requested
+        List<Authorization> foundAuth = authServiceMetrics.recordStage(
+                "authorization-lookup",
+                () -> wrapCatch(
+                        () -> allHigherAuthOnSameResource.orElse(false) ?
+                                authorizationRepository.findHigherByOwnerAndResourcePrefixAndGroups(
+                                        owner,
+                                        authMapper.toModel(ownerType),
+                                        null,
+                                        userGroups
+                                ) :
+                                authorizationRepository.findAllByOwnerAndResourcePrefixAndGroups(
+                                        owner,
+                                        authMapper.toModel(ownerType),
+                                        null,
+                                        userGroups
+                                ),
                         -1,
                         "AuthService::getAllAuthorization"
-                ).stream().map(
-                        authMapper::fromModel
-                ).toList()
+                )
         );
-
-        // get user authorizations inherited by group
-        if (includeInherited.isPresent() && includeInherited.get()) {
-            getAuthByGroupInheritance(owner, allAuth);
-        }
-
-        if (allHigherAuthOnSameResource.isPresent() && allHigherAuthOnSameResource.get()) {
-            allAuth = allAuth.stream()
-                    .collect(
-                            Collectors.toMap(
-                                    AuthorizationDTO::resource,
-                                    auth -> auth,
-                                    (existing, replacement) -> authMapper.toModel(existing.authorizationType()).getValue() >= authMapper.toModel(replacement.authorizationType()).getValue() ? existing : replacement
-                            ))
-                    .values().stream().toList();
-        }
-
-        return allAuth;
+        List<AuthorizationDTO> allAuth = authServiceMetrics.recordStage("reduction", () -> toAuthorizationDTOs(foundAuth));
+        return ResolvedAuthorizations.builder()
+                .owners(Set.of(owner))
+                .groups(new HashSet<>(userGroups))
+                .authorizations(allAuth)
+                .build();
     }
 
     /**
-     * Return all the authorizations for an owner that match with the prefix
-     * and the authorizations type, if the owner is of type 'User' will be checked for all the
-     * entries all along with those that belongs to all the user groups.
+     * The real id of an owner along with the groups where it belongs
      *
-     * @param ownerId is the owner target of the result authorizations
-     * @param allAuth the container that host all the user authorizations
-     * @return the list of found resource
+     * @param realOwnerId the owner id, or the token id if the owner is the email of a token
+     * @param groups      the ldap and local groups of the owner
      */
-    private void getAuthByGroupInheritance(String ownerId, List<AuthorizationDTO> allAuth) {
-        // in case we have a user check also the groups that belongs to the user
-        List<String> userGroups = getGroupByUserId(ownerId);
-
-        // load all groups authorizations
-        allAuth.addAll(
-                userGroups
-                        .stream()
-                        .map(
-                                groupId -> authorizationRepository.findByOwnerAndOwnerTypeIs(
-                                        groupId,
-                                        AuthorizationOwnerType.Group
+    private record ResolvedOwner(String realOwnerId, List<String> groups) {
+    }
 
-                                )
-                        )
-                        .flatMap(List::stream)
-                        .map(
-                                authMapper::fromModel
-                        )
-                        .toList()
-        );
+    /**
+     * Resolve the real id of the owner and, if requested, the groups where it belongs.
+     * The groups are those of the real id, so the token id is resolved before the ldap and local groups
+     * are looked up in parallel
+     *
+     * @param ownerId       the owner id
+     * @param includeGroups if true resolve also the groups
+     * @return the resolved owner
+     */
+    private ResolvedOwner resolveOwner(String ownerId, boolean includeGroups) {
+        String realOwnerId = returnRealId(ownerId);
+        return new ResolvedOwner(realOwnerId, includeGroups ? getGroupByUserId(realOwnerId) : List.of());
     }
 
     /**
@@ -309,23 +372,88 @@ public class AuthServiceImpl extends AuthService {
      * @return
      */
     private List<String> getGroupByUserId(String ownerId) {
-        List<String> userGroups = new ArrayList<>();
-        // in case we have a user check also the groups that belongs to the user
-        userGroups.addAll(
-                peopleGroupService.findGroupByUserId(ownerId)
-                        .stream()
-                        .map(GroupDTO::uid)
-                        .toList()
-        );
+        // ldap and local groups are independent
+        var ldapGroups = authorizationLookupExecutor.submit(() -> findLdapGroupIdByMember(ownerId));
+        var localGroups = authorizationLookupExecutor.submit(() -> findLocalGroupIdByMember(ownerId));
+        authorizationLookupExecutor.awaitAll("AuthService::getGroupByUserId", ldapGroups, localGroups);
+        List<String> userGroups = new ArrayList<>(ldapGroups.resultNow());
+        userGroups.addAll(localGroups.resultNow());
+        return userGroups;
+    }
 
-        // get all local group
-        userGroups.addAll(
-                localGroupRepository.findAllByMembersContains(ownerId)
+    /**
+     * Return the id of all the local groups where the user is a member
+     *
+     * @param ownerId the user id
+     * @return the local group ids
+     */
+    private List<String> findLocalGroupIdByMember(String ownerId) {
+        return authServiceMetrics.recordStage(
+                "local-group-lookup",
+                () -> localGroupRepository.findAllByMembersContains(ownerId)
                         .stream()
                         .map(LocalGroup::getId)
                         .toList()
         );
-        return userGroups;
+    }
+
+    /**
+     * Return the uid of all the ldap groups where the user is a member
+     *
+     * @param ownerId the user id
+     * @return the ldap group uids
+     */
+    private List<String> findLdapGroupIdByMember(String ownerId) {
+        return authServiceMetrics.recordStage("ldap-group-lookup", () -> groupMembershipCache.get(ownerId));
+    }
+
+    /**
+     * Convert the found authorizations to dto
+     *
+     * @param authorizations the authorizations
+     * @return the authorizations dto
+     */
+    private List<AuthorizationDTO> toAuthorizationDTOs(List<Authorization> authorizations) {
+        return authorizations.stream()
+                .map(authMapper::fromModel)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Invalidate the cached permissions that depend on a written authorization, on this node the
+     * next checks see the change without waiting the change stream
+     *
+     * @param authorization the created, updated or deleted authorization
+     */
+    private void invalidateCachedAuthorization(Authorization authorization) {
+        if (authorization.getId() != null) {
+            authorizationCache.invalidateAuthorization(authorization.getId());
+        }
+        invalidateCachedOwner(authorization.getOwner(), authorization.getOwnerType());
+    }
+
+    /**
+     * Invalidate the cached permissions of an owner, or of all the members of a group
+     *
+     * @param ownerId   the owner id
+     * @param ownerType the owner type
+     */
+    private void invalidateCachedOwner(String ownerId, AuthorizationOwnerType ownerType) {
+        if (ownerType == AuthorizationOwnerType.Group) {
+            authorizationCache.invalidateGroup(ownerId);
+        } else {
+            authorizationCache.invalidateOwner(ownerId);
+        }
+    }
+
+    /**
+     * Invalidate the resolution of a token email, and the permissions cached for it
+     *
+     * @param email the token email
+     */
+    private void invalidateCachedTokenEmail(String email) {
+        authenticationTokenIdCache.invalidateEmail(email);
+        authorizationCache.invalidateOwner(email);
     }
 
     /**
@@ -338,8 +466,8 @@ public class AuthServiceImpl extends AuthService {
                 email -> !email.contains("@internal.")
         ).toList();
         //load actual root
-        List<Authorization> currentRootUser = wrapCatch(
-                () -> authorizationRepository.findByResourceIsAndAuthorizationTypeIsGreaterThanEqualAndOwnerTypeIs(
+        List<AuthorizationProjection> currentRootUser = wrapCatch(
+                () -> authorizationRepository.findProjectionByResourceAndAuthorizationTypeAndOwnerType(
                         "*",
                         authMapper.toModel(Admin).getValue(),
                         AuthorizationOwnerType.User
@@ -350,7 +478,7 @@ public class AuthServiceImpl extends AuthService {
 
         currentRootUser.addAll(
                 wrapCatch(
-                        () -> authorizationRepository.findByResourceIsAndAuthorizationTypeIsGreaterThanEqualAndOwnerTypeIs(
+                        () -> authorizationRepository.findProjectionByResourceAndAuthorizationTypeAndOwnerType(
                                 "*",
                                 authMapper.toModel(Admin).getValue(),
                                 AuthorizationOwnerType.Token
@@ -359,13 +487,13 @@ public class AuthServiceImpl extends AuthService {
                         "AuthService::updateRootUser"
                 ).stream().filter(
                         // add also the internal service token that are root
-                        auth -> appProperties.isServiceInternalTokenEmail(auth.getOwner())
+                        auth -> appProperties.isServiceInternalTokenEmail(auth.owner())
                 ).toList()
         );
 
         // find root users to remove
         List<String> rootUserToRemove = currentRootUser.stream().map(
-                Authorization::getOwner
+                AuthorizationProjection::owner
         ).toList().stream().filter(
                 userEmail -> !wrapCatch(
                         () -> rootUserList.contains(userEmail),
@@ -389,6 +517,7 @@ public class AuthServiceImpl extends AuthService {
                     -2,
                     "AuthService::updateRootUser"
             );
+            authorizationCache.invalidateOwner(userEmailToRemove);
         }
 
         // ensure current root users
@@ -408,7 +537,7 @@ public class AuthServiceImpl extends AuthService {
             if (rootAuth.isEmpty()) {
                 log.info("Create root authorizations for user '{}'", userEmail);
                 var isServiceInternalEmail = appProperties.isServiceInternalTokenEmail(userEmail);
-                wrapCatch(
+                Authorization newRootAuth = wrapCatch(
                         () -> authorizationRepository.save(
                                 Authorization
                                         .builder()
@@ -422,6 +551,7 @@ public class AuthServiceImpl extends AuthService {
                         -2,
                         "AuthService::updateRootUser"
                 );
+                invalidateCachedAuthorization(newRootAuth);
             } else {
                 log.info("Root authorizations for '{}' already exists", userEmail);
             }
@@ -478,6 +608,7 @@ public class AuthServiceImpl extends AuthService {
                         -3,
                         "AuthService::updateAutoManagedRootToken"
                 );
+                authorizationCache.invalidateOwner(authToken.getId());
 
                 wrapCatch(
                         () -> {
@@ -489,6 +620,7 @@ public class AuthServiceImpl extends AuthService {
                         -3,
                         "AuthService::updateAutoManagedRootToken"
                 );
+                invalidateCachedTokenEmail(authToken.getEmail());
             }
             wrapCatch(
                     () -> {
@@ -498,6 +630,8 @@ public class AuthServiceImpl extends AuthService {
                     -4,
                     "AuthService::updateAutoManagedRootToken"
             );
+            authenticationTokenIdCache.invalidateAll();
+            authorizationCache.invalidateAll();
             return;
         }
         List<AuthenticationToken> foundAuthenticationTokens = wrapCatch(
@@ -528,8 +662,9 @@ public class AuthServiceImpl extends AuthService {
                         "AuthService::updateAutoManagedRootToken"
                 );
                 log.info("Created authentication token with name {}", newAuthTok.getName());
+                invalidateCachedTokenEmail(newAuthTok.getEmail());
 
-                wrapCatch(
+                Authorization newRootAuth = wrapCatch(
                         () -> authorizationRepository.save(
                                 Authorization
                                         .builder()
@@ -543,6 +678,7 @@ public class AuthServiceImpl extends AuthService {
                         -7,
                         "AuthService::updateAutoManagedRootToken"
                 );
+                invalidateCachedAuthorization(newRootAuth);
 
                 log.info("Created root authorization for token with name {}", newAuthTok.getName());
             }
@@ -615,7 +751,7 @@ public class AuthServiceImpl extends AuthService {
                 authMapper.toModel(Admin).getValue()
         );
         if (rootAuth.isPresent()) return;
-        wrapCatch(
+        Authorization newRootAuth = wrapCatch(
                 () -> authorizationRepository.save(
                         Authorization
                                 .builder()
@@ -629,6 +765,7 @@ public class AuthServiceImpl extends AuthService {
                 -1,
                 "AuthService::addRootAuthorization"
         );
+        invalidateCachedAuthorization(newRootAuth);
     }
 
     /**
@@ -687,7 +824,7 @@ public class AuthServiceImpl extends AuthService {
                 authMapper.toModel(Admin).getValue()
         );
         if (rootAuth.isPresent()) return;
-        wrapCatch(
+        Authorization newRootAuth = wrapCatch(
                 () -> authorizationRepository.save(
                         Authorization
                                 .builder()
@@ -701,6 +838,7 @@ public class AuthServiceImpl extends AuthService {
                 -1,
                 "AuthService::addRootAuthorization"
         );
+        invalidateCachedAuthorization(newRootAuth);
     }
 
     /**
@@ -746,6 +884,7 @@ public class AuthServiceImpl extends AuthService {
                 -1,
                 "AuthService::removeRootAuthorization"
         );
+        invalidateCachedAuthorization(rootAuth.get());
     }
 
     /**
@@ -754,16 +893,35 @@ public class AuthServiceImpl extends AuthService {
      * @return all the root authorization
      */
     public List<AuthorizationDTO> findAllRoot() {
+        return authServiceMetrics.recordMethod(
+                "findAllRoot",
+                () -> wrapCatch(
+                        () -> authorizationRepository.findByResourceIs("*"),
+                        -1,
+                        "AuthService::findAllRoot"
+                )
+                        .stream()
+                        .map(
+                                authMapper::fromModel
+                        )
+                        .toList()
+        );
+    }
+
+    /**
+     * Stream all root authorization reading them from a cursor in batches, the stream need to be closed
+     *
+     * @return the stream of the root authorization
+     */
+    public Stream<AuthorizationDTO> streamAllRoot() {
         return wrapCatch(
-                () -> authorizationRepository.findByResourceIs("*"),
+                () -> authorizationRepository.streamByResource("*", mongoDBProperties.getStreaming().getBatchSize()),
                 -1,
-                "AuthService::findAllRoot"
+                "AuthService::streamAllRoot"
         )
-                .stream()
                 .map(
                         authMapper::fromModel
-                )
-                .toList();
+                );
     }
 
     @Override
@@ -786,16 +944,21 @@ public class AuthServiceImpl extends AuthService {
                         )
                         .build()
         );
+        // the new type can add or remove the authorization from the cached checks
+        invalidateCachedAuthorization(updatedAuthorization);
         return updatedAuthorization.getId();
     }
 
     @Override
     public String ensureAuthorization(AuthorizationDTO authorizationDTO) {
-        return wrapCatch(
-                () -> authorizationRepository.ensureAuthorization(authMapper.toModel(authorizationDTO)),
+        Authorization authorization = authMapper.toModel(authorizationDTO);
+        String authorizationId = wrapCatch(
+                () -> authorizationRepository.ensureAuthorization(authorization),
                 -1,
                 "AuthService::addNewAuthorization"
         );
+        invalidateCachedOwner(authorization.getOwner(), authorization.getOwnerType());
+        return authorizationId;
     }
 
     @Override
@@ -805,6 +968,7 @@ public class AuthServiceImpl extends AuthService {
                 -1,
                 "AuthService::addNewAuthorization"
         );
+        invalidateCachedAuthorization(result);
         return result.getId();
     }
 
@@ -829,6 +993,8 @@ public class AuthServiceImpl extends AuthService {
         wrapCatch(
                 () -> {
                     authorizationRepository.deleteById(authorizationId);
+                    // only the checks that returned the authorization are affected
+                    authorizationCache.invalidateAuthorization(authorizationId);
                     return null;
                 },
                 -1,
@@ -880,6 +1046,7 @@ public class AuthServiceImpl extends AuthService {
                 -2,
                 "AuthService:ensureAuthenticationToken"
         );
+        invalidateCachedTokenEmail(newToken.getEmail());
         return newToken.getId();
     }
 
@@ -919,18 +1086,18 @@ public class AuthServiceImpl extends AuthService {
                         .build()
         );
         // convert to model and normalize the name
-        return authMapper.toTokenDTO(
-                wrapCatch(
-                        () -> authenticationTokenRepository.save(
-                                getAuthenticationToken(
-                                        newAuthenticationTokenDTO,
-                                        appManaged
-                                )
-                        ),
-                        -4,
-                        "AuthService::addNewAuthenticationToken"
-                )
+        AuthenticationToken newToken = wrapCatch(
+                () -> authenticationTokenRepository.save(
+                        getAuthenticationToken(
+                                newAuthenticationTokenDTO,
+                                appManaged
+                        )
+                ),
+                -4,
+                "AuthService::addNewAuthenticationToken"
         );
+        invalidateCachedTokenEmail(newToken.getEmail());
+        return authMapper.toTokenDTO(newToken);
     }
 
     @Override
@@ -961,18 +1128,18 @@ public class AuthServiceImpl extends AuthService {
                         .build()
         );
         // convert to model and normalize the name
-        return authMapper.toTokenDTO(
-                wrapCatch(
-                        () -> authenticationTokenRepository.save(
-                                getApplicationAuthenticationToken(
-                                        newAuthenticationTokenDTO,
-                                        appManaged
-                                )
-                        ),
-                        -4,
-                        "AuthService::addNewAuthenticationToken"
-                )
+        AuthenticationToken newToken = wrapCatch(
+                () -> authenticationTokenRepository.save(
+                        getApplicationAuthenticationToken(
+                                newAuthenticationTokenDTO,
+                                appManaged
+                        )
+                ),
+                -4,
+                "AuthService::addNewAuthenticationToken"
         );
+        invalidateCachedTokenEmail(newToken.getEmail());
+        return authMapper.toTokenDTO(newToken);
     }
 
     private AuthenticationToken getApplicationAuthenticationToken(NewAuthenticationTokenDTO newAuthenticationTokenDTO, boolean appManaged) {
@@ -1072,6 +1239,22 @@ public class AuthServiceImpl extends AuthService {
         );
     }
 
+    /**
+     * Stream all the global authentication tokens reading them from a cursor in batches, the stream need to be closed
+     *
+     * @return the stream of all authentication tokens
+     */
+    public Stream<AuthenticationTokenDTO> streamAllAuthenticationToken() {
+        return wrapCatch(
+                () -> authenticationTokenRepository.streamAll(mongoDBProperties.getStreaming().getBatchSize()),
+                -1,
+                "AuthService::streamAllAuthenticationToken"
+        )
+                .map(
+                        authMapper::toTokenDTO
+                );
+    }
+
     @Override
     public List<AuthenticationTokenDTO> findAllAuthenticationToken(AuthenticationTokenQueryParameterDTO queryParameterDTO) {
         return wrapCatch(
@@ -1084,6 +1267,26 @@ public class AuthServiceImpl extends AuthService {
         );
     }
 
+    /**
+     * Return a page of authentication tokens ordered by creation date, using a keyset cursor
+     *
+     * @param cursor       the cursor returned by the previous page, null for the first page
+     * @param limit        the max number of tokens of the page
+     * @param searchFilter the full text search, null to not filter
+     * @return the page and the cursor of the next one
+     */
+    public KeysetPage<AuthenticationTokenDTO> findAuthenticationTokenPage(String cursor, int limit, String searchFilter) {
+        KeysetPage<AuthenticationToken> page = wrapCatch(
+                () -> authenticationTokenRepository.findPage(cursor, limit, searchFilter),
+                -1,
+                "AuthService::findAuthenticationTokenPage"
+        );
+        return KeysetPage.<AuthenticationTokenDTO>builder()
+                .content(page.content().stream().map(authMapper::toTokenDTO).toList())
+                .nextCursor(page.nextCursor())
+                .build();
+    }
+
     /**
      * Delete a token by name along with all his authorization records
      *
@@ -1107,6 +1310,7 @@ public class AuthServiceImpl extends AuthService {
                 -3,
                 "AuthService::deleteToken"
         );
+        authenticationTokenIdCache.invalidateTokenId(tokenToDelete.id());
         //delete authorizations
         wrapCatch(
                 () -> {
@@ -1116,6 +1320,8 @@ public class AuthServiceImpl extends AuthService {
                 -2,
                 "AuthService::deleteToken"
         );
+        // the checks resolved by token email have the token id as owner too
+        authorizationCache.invalidateOwner(tokenToDelete.id());
     }
 
     /**
@@ -1177,6 +1383,8 @@ public class AuthServiceImpl extends AuthService {
                 -1,
                 "AuthService::deleteAllAuthenticationTokenWithEmailEndWith"
         );
+        authenticationTokenIdCache.invalidateAll();
+        authorizationCache.invalidateAll();
     }
 
     @Override
@@ -1193,25 +1401,27 @@ public class AuthServiceImpl extends AuthService {
 
     @Override
     public boolean canManageGroup(String userId) {
-        boolean isAppToken = appProperties.isAuthenticationToken(userId);
-        // get user authorizations
-        List<AuthorizationDTO> allAuth = new ArrayList<>(
-                wrapCatch(
-                        () -> authorizationRepository.findByOwnerAndOwnerTypeAndAuthorizationTypeIsGreaterThanEqualAndResourceStartingWith(
-                                userId,
-                                isAppToken ? AuthorizationOwnerType.Token : AuthorizationOwnerType.User,
-                                Authorization.Type.Admin.getValue(),
-                                "%s/group".formatted(
-                                        appProperties.getAppName()
-                                )
-                        ),
-                        -1,
-                        "AuthService::getAllAuthorization"
-                ).stream().map(
-                        authMapper::fromModel
-                ).toList()
+        return authServiceMetrics.recordMethod(
+                "canManageGroup",
+                () -> {
+                    boolean isAppToken = appProperties.isAuthenticationToken(userId);
+                    return authServiceMetrics.recordStage(
+                            "authorization-lookup",
+                            () -> wrapCatch(
+                                    () -> authorizationRepository.existsByOwnerAndAuthorizationTypeAndResourcePrefix(
+                                            userId,
+                                            isAppToken ? AuthorizationOwnerType.Token : AuthorizationOwnerType.User,
+                                            Authorization.Type.Admin.getValue(),
+                                            "%s/group".formatted(
+                                                    appProperties.getAppName()
+                                            )
+                                    ),
+                                    -1,
+                                    "AuthService::canManageGroup"
+                            )
+                    );
+                }
         );
-        return !allAuth.isEmpty();
     }
 
     @Override
@@ -1232,6 +1442,7 @@ public class AuthServiceImpl extends AuthService {
                 -1,
                 "AuthService::addNewAuthorization"
         );
+        invalidateCachedOwner(userId, isAppToken ? AuthorizationOwnerType.Token : AuthorizationOwnerType.User);
     }
 
     @Override
@@ -1245,6 +1456,7 @@ public class AuthServiceImpl extends AuthService {
                             ),
                             Authorization.Type.Admin.getValue()
                     );
+                    authorizationCache.invalidateOwner(userId);
                     return null;
                 },
                 -1,
@@ -1270,13 +1482,13 @@ public class AuthServiceImpl extends AuthService {
 
     @Override
     public List<UserGroupManagementAuthorizationLevel> getGroupManagementAuthorization(List<String> userIds) {
-        List<Authorization> authFound = wrapCatch(
-                () -> authorizationRepository.findByResourceIsAndOwnerIn("%s/group".formatted(appProperties.getAppName()), userIds),
+        List<AuthorizationProjection> authFound = wrapCatch(
+                () -> authorizationRepository.findProjectionByResourceAndOwnerIn("%s/group".formatted(appProperties.getAppName()), userIds),
                 1
         );
         var result = authFound.stream().map(
                 auth -> UserGroupManagementAuthorizationLevel.builder()
-                        .user(peopleGroupService.findPersonByEMail(auth.getOwner()))
+                        .user(peopleGroupService.findPersonByEMail(auth.owner()))
                         .canManageGroup(true)
                         .build()
         ).toList();
@@ -1314,6 +1526,8 @@ public class AuthServiceImpl extends AuthService {
                 -1,
                 "AuthService::createLocalGroup"
         );
+        // the members inherit the authorizations of the new group
+        invalidateCachedGroupMembers(savedGroup);
         return savedGroup.getId();
     }
 
@@ -1336,12 +1550,15 @@ public class AuthServiceImpl extends AuthService {
             updateGroupDTO = updateGroupDTO.toBuilder().members(newList).build();
         }
         UpdateLocalGroupDTO finalUpdateGroupDTO = updateGroupDTO;
-        wrapCatch(
+        LocalGroup updatedGroup = wrapCatch(
                 () -> localGroupRepository.save(
                         localGroupMapper.updateModel(finalUpdateGroupDTO, foundLocalGroup)
                 ),
                 -3
         );
+        // the removed members are found by group, the added ones by owner
+        authorizationCache.invalidateGroup(localGroupId);
+        invalidateCachedGroupMembers(updatedGroup);
     }
 
     @Override
@@ -1353,6 +1570,17 @@ public class AuthServiceImpl extends AuthService {
                 },
                 -1
         );
+        authorizationCache.invalidateGroup(localGroupId);
+    }
+
+    /**
+     * Invalidate the cached permissions of all the members of a local group
+     *
+     * @param localGroup the local group
+     */
+    private void invalidateCachedGroupMembers(LocalGroup localGroup) {
+        if (localGroup.getMembers() == null) return;
+        localGroup.getMembers().forEach(authorizationCache::invalidateOwner);
     }
 
     @Override
@@ -1388,10 +1616,13 @@ public class AuthServiceImpl extends AuthService {
      * @return
      */
     private String returnRealId(String ownerId) {
-        var authToken = getAuthenticationTokenByEmail(ownerId);
-        if (authToken.isPresent()) {
-            return authToken.get().id();
-        }
-        return ownerId;
+        // the emails that are not of a token are cached too
+        return authServiceMetrics.recordStage(
+                "token-id-resolution",
+                () -> authenticationTokenIdCache.get(
+                        ownerId,
+                        email -> getAuthenticationTokenByEmail(email).map(AuthenticationTokenDTO::id)
+                ).orElse(ownerId)
+        );
     }
 }
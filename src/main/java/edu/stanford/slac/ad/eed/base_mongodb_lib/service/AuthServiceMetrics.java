@@ -0,0 +1,80 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Time the permission checks of {@link AuthServiceImpl} and the stages they are made of.
+ * <p>
+ * The methods are timed in {@code auth.service.method} and the stages (token id resolution, ldap and local
+ * group lookup, authorization lookup and reduction) in {@code auth.service.stage}, both tagged by outcome
+ * and exception. The stages are never nested, so their times can be summed. Nothing is recorded when the
+ * application has no meter registry.
+ */
+@Component
+public class AuthServiceMetrics {
+    public static final String METHOD_TIMER = "auth.service.method";
+    public static final String STAGE_TIMER = "auth.service.stage";
+    private final MeterRegistry meterRegistry;
+    // the timers are registered once for each name, outcome and exception
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    private record TimerKey(String timerName, String nameTag, String name, String outcome, String exception) {
+    }
+
+    public AuthServiceMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry.getIfAvailable();
+    }
+
+    /**
+     * Time a public method
+     *
+     * @param method the method name
+     * @param call   the method body
+     * @return the result of the method
+     */
+    public <T> T recordMethod(String method, Supplier<T> call) {
+        return record(METHOD_TIMER, "method", method, call);
+    }
+
+    /**
+     * Time a stage of a permission check
+     *
+     * @param stage the stage name
+     * @param call  the stage body
+     * @return the result of the stage
+     */
+    public <T> T recordStage(String stage, Supplier<T> call) {
+        return record(STAGE_TIMER, "stage", stage, call);
+    }
+
+    private <T> T record(String timerName, String nameTag, String name, Supplier<T> call) {
+        if (meterRegistry == null) return call.get();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        String exception = "none";
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            outcome = "error";
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(timers.computeIfAbsent(new TimerKey(timerName, nameTag, name, outcome, exception), this::register));
+        }
+    }
+
+    private Timer register(TimerKey key) {
+        return Timer.builder(key.timerName())
+                .tag(key.nameTag(), key.name())
+                .tag("outcome", key.outcome())
+                .tag("exception", key.exception())
+                .register(meterRegistry);
+    }
+}
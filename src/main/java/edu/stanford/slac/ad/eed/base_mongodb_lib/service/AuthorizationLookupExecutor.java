@@ -0,0 +1,183 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.service;
+
+import com.mongodb.ConnectionString;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.config.CausalSessionScope;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.config.MongoDBProperties;
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.mongo.MongoProperties;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Run the independent lookups of the permission resolution (token id, ldap groups and local groups)
+ * on a bounded pool, so the resolution take as long as the slowest of them.
+ * <p>
+ * When the parallel mode is disabled the lookups are executed on the caller thread.
+ * In the virtual thread mode each lookup run on its own virtual thread, and a semaphore sized on the
+ * driver connection pool bound the lookups that use a connection at the same time.
+ * The lookups that exceed the timeout are interrupted, so they release their thread or permit.
+ * The lookups started in a {@link CausalSessionScope} continue it on their own thread.
+ */
+@Log4j2
+@Component
+public class AuthorizationLookupExecutor implements DisposableBean {
+    @Getter
+    private final boolean parallel;
+    private final Duration timeout;
+    private final ExecutorService executorService;
+    // limit the concurrent lookups on virtual threads, null in the other modes
+    private final Semaphore concurrentLookups;
+    private final CausalSessionScope causalSessionScope;
+
+    public AuthorizationLookupExecutor(MongoDBProperties mongoDBProperties, MongoProperties mongoProperties, CausalSessionScope causalSessionScope) {
+        this.causalSessionScope = causalSessionScope;
+        MongoDBProperties.AuthorizationLookupProperties properties = mongoDBProperties.getAuthorizationLookup();
+        this.parallel = properties.isParallel();
+        this.timeout = properties.getTimeout();
+        if (parallel && properties.isVirtualThreads()) {
+            int maxConcurrentLookups = properties.getMaxConcurrentLookups() > 0 ?
+                    properties.getMaxConcurrentLookups() :
+                    getDriverPoolSize(mongoProperties, mongoDBProperties.getClient());
+            log.info("Run the authorization lookups on virtual threads with max {} concurrent lookups", maxConcurrentLookups);
+            this.concurrentLookups = new Semaphore(maxConcurrentLookups);
+            this.executorService = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("authorization-lookup-", 0).factory()
+            );
+            return;
+        }
+        this.concurrentLookups = null;
+        this.executorService = parallel ?
+                new ThreadPoolExecutor(
+                        properties.getPoolSize(),
+                        properties.getPoolSize(),
+                        60,
+                        TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(properties.getQueueSize()),
+                        new CustomizableThreadFactory("authorization-lookup-"),
+                        // when saturated the caller do the lookup by itself
+                        new ThreadPoolExecutor.CallerRunsPolicy()
+                ) :
+                null;
+    }
+
+    /**
+     * Start a lookup, its result is read with {@link Future#resultNow()} after {@link #awaitAll}
+     *
+     * @param lookup the lookup to execute
+     * @return the future result of the lookup
+     */
+    public <T> Future<T> submit(Supplier<T> lookup) {
+        if (!parallel) {
+            FutureTask<T> task = new FutureTask<>(lookup::get);
+            task.run();
+            return task;
+        }
+        // captured here, by the thread that own the scope
+        Supplier<T> scopedLookup = causalSessionScope.propagate(lookup);
+        // the task is cancelled by the thread that run it, so a timeout interrupt the lookup
+        FutureTask<T> task = concurrentLookups != null ?
+                new FutureTask<>(() -> limited(scopedLookup)) :
+                new FutureTask<>(scopedLookup::get);
+        executorService.execute(task);
+        return task;
+    }
+
+    /**
+     * Execute the lookup holding a permit, a waiting virtual thread does not block its carrier
+     * and stop waiting when the lookup is cancelled
+     */
+    private <T> T limited(Supplier<T> lookup) throws InterruptedException {
+        concurrentLookups.acquire();
+        try {
+            return lookup.get();
+        } finally {
+            concurrentLookups.release();
+        }
+    }
+
+    /**
+     * Return the max size of the driver connection pool, the uri take precedence over the client properties
+     *
+     * @param mongoProperties  the mongodb properties
+     * @param clientProperties the client properties
+     * @return the max number of connections
+     */
+    private static int getDriverPoolSize(MongoProperties mongoProperties, MongoDBProperties.ClientProperties clientProperties) {
+        Integer maxPoolSize = mongoProperties.getUri() != null ?
+                new ConnectionString(mongoProperties.getUri()).getMaxConnectionPoolSize() :
+                null;
+        return maxPoolSize != null && maxPoolSize > 0 ? maxPoolSize : clientProperties.getMaxPoolSize();
+    }
+
+    /**
+     * Wait, up to the configured timeout, that all the lookups are completed
+     *
+     * @param errorDomain the domain of the error in case of failure
+     * @param lookups     the lookups to wait for
+     */
+    public void awaitAll(String errorDomain, Future<?>... lookups) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            for (Future<?> lookup : lookups) {
+                lookup.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            }
+        } catch (ExecutionException e) {
+            cancelAll(lookups);
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw ControllerLogicException.builder()
+                    .errorCode(-1)
+                    .errorMessage("Error resolving the authorizations: %s".formatted(e.getCause()))
+                    .errorDomain(errorDomain)
+                    .build();
+        } catch (TimeoutException e) {
+            cancelAll(lookups);
+            throw ControllerLogicException.builder()
+                    .errorCode(-2)
+                    .errorMessage("Timeout resolving the authorizations after %d ms".formatted(timeout.toMillis()))
+                    .errorDomain(errorDomain)
+                    .build();
+        } catch (InterruptedException e) {
+            cancelAll(lookups);
+            Thread.currentThread().interrupt();
+            throw ControllerLogicException.builder()
+                    .errorCode(-3)
+                    .errorMessage("Interrupted resolving the authorizations")
+                    .errorDomain(errorDomain)
+                    .build();
+        }
+    }
+
+    /**
+     * Interrupt the lookups that are still running
+     */
+    private static void cancelAll(Future<?>... lookups) {
+        for (Future<?> lookup : lookups) {
+            lookup.cancel(true);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
+    }
+}
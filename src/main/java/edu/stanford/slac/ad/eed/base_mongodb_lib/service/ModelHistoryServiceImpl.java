@@ -3,20 +3,23 @@ package edu.stanford.slac.ad.eed.base_mongodb_lib.service;
 import edu.stanford.slac.ad.eed.baselib.api.v1.dto.ModelChangeDTO;
 import edu.stanford.slac.ad.eed.baselib.api.v1.dto.ModelChangesHistoryDTO;
 import edu.stanford.slac.ad.eed.baselib.api.v1.mapper.ModelChangeMapper;
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
 import edu.stanford.slac.ad.eed.baselib.service.ModelHistoryService;
 import lombok.AllArgsConstructor;
-import org.javers.core.Changes;
 import org.javers.core.Javers;
-import org.javers.core.commit.CommitId;
-import org.javers.core.diff.changetype.PropertyChange;
 import org.javers.core.metamodel.object.CdoSnapshot;
+import org.javers.core.metamodel.type.JaversProperty;
 import org.javers.repository.jql.QueryBuilder;
+import org.javers.repository.jql.ShadowScope;
 import org.javers.shadow.Shadow;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Stream;
 
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
 import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
 
 @Service
@@ -27,14 +30,57 @@ public class ModelHistoryServiceImpl extends ModelHistoryService {
 
     @Override
     public <T> List<ModelChangesHistoryDTO> findChangesByModelId(Class<T> modelClazz, String modelId) {
-        List<CdoSnapshot> snapshots = getSnapshotById(modelClazz, modelId);
-        Changes changes = getChangesById(modelClazz, modelId);
+        return findChanges(modelClazz, modelId, QueryBuilder.byInstanceId(modelId, modelClazz));
+    }
+
+    /**
+     * Return a page of the changes of a model, starting from the last commit
+     *
+     * @param modelClazz model class
+     * @param modelId    model id
+     * @param skip       the number of commits to skip
+     * @param limit      the max number of commits to return
+     * @param from       the min commit date (included), null for no bound
+     * @param to         the max commit date (included), null for no bound
+     * @param <T>        model type
+     * @return the changes of each commit of the page
+     */
+    public <T> List<ModelChangesHistoryDTO> findChangesByModelId(Class<T> modelClazz, String modelId, int skip, int limit, LocalDateTime from, LocalDateTime to) {
+        return findChanges(modelClazz, modelId, getPageQueryBuilder(modelClazz, modelId, skip, limit, from, to));
+    }
+
+    @Override
+    public <T> List<T> findModelChangesByModelId(Class<T> modelClazz, String modelId) {
+        return findModelChanges(QueryBuilder.byInstanceId(modelId, modelClazz));
+    }
+
+    /**
+     * Return a page of the states of a model, starting from the last commit
+     *
+     * @param modelClazz model class
+     * @param modelId    model id
+     * @param skip       the number of commits to skip
+     * @param limit      the max number of commits to return
+     * @param from       the min commit date (included), null for no bound
+     * @param to         the max commit date (included), null for no bound
+     * @param <T>        model type
+     * @return the states of the model of the page
+     */
+    public <T> List<T> findModelChangesByModelId(Class<T> modelClazz, String modelId, int skip, int limit, LocalDateTime from, LocalDateTime to) {
+        return findModelChanges(getPageQueryBuilder(modelClazz, modelId, skip, limit, from, to));
+    }
+
+    private <T> List<ModelChangesHistoryDTO> findChanges(Class<T> modelClazz, String modelId, QueryBuilder queryBuilder) {
+        // the snapshots are read once and the changes are computed from each pair of consecutive versions
+        List<CdoSnapshot> snapshots = javers.findSnapshots(queryBuilder.build());
+        Map<Long, CdoSnapshot> snapshotsByVersion = new HashMap<>();
+        snapshots.forEach(snapshot -> snapshotsByVersion.put(snapshot.getVersion(), snapshot));
         return snapshots.stream()
                 .map(snapshot ->
                         ModelChangesHistoryDTO.builder()
                                 .modelId(snapshot.getCommitMetadata().getId().toString())
                                 .modelId(modelId)
-                                .changes(extractChanges(changes, snapshot.getCommitId()))
+                                .changes(getSnapshotChanges(getPreviousSnapshot(modelClazz, modelId, snapshot, snapshotsByVersion), snapshot))
                                 .createdDate(snapshot.getCommitMetadata().getCommitDate())
                                 .createdBy(snapshot.getCommitMetadata().getAuthor())
                                 .build()
@@ -42,83 +88,137 @@ public class ModelHistoryServiceImpl extends ModelHistoryService {
                 .toList();
     }
 
-    @Override
-    public <T> List<T> findModelChangesByModelId(Class<T> modelClazz, String modelId) {
-        List<Shadow<T>> snapshotList = getShadowsById(modelClazz, modelId);
-        var result = snapshotList
-                .stream()
-                .sorted
-                        (
-                                Comparator.comparing
-                                        (
-                                                shadow -> shadow.getCommitMetadata().getCommitDate(),
-                                                Comparator.reverseOrder()
-                                        )
-                        )
-                .map(
-                        shadow -> shadow.get()
-                )
-                .toList();
-        return result;
-    }
-
     /**
-     * Get all snapshots of a model by its id
+     * Stream lazily the states of a model, starting from the last commit
+     * <p>
+     * The shadows are shallow and loaded in batches while the stream is consumed, so a caller that need only
+     * the last versions doesn't load all the history
      *
      * @param modelClazz model class
      * @param modelId    model id
+     * @param batchSize  the number of versions loaded for each query
      * @param <T>        model type
-     * @return list of snapshots
+     * @return the stream of the states of the model
      */
-    private <T> List<CdoSnapshot> getSnapshotById(Class<T> modelClazz, String modelId) {
-        return javers.findSnapshots(QueryBuilder.byInstanceId(modelId, modelClazz).build());
+    public <T> Stream<T> streamModelChangesByModelId(Class<T> modelClazz, String modelId, int batchSize) {
+        assertion(
+                ControllerLogicException
+                        .builder()
+                        .errorCode(-1)
+                        .errorMessage("The batch size need to be greater than zero")
+                        .errorDomain("ModelHistoryService::streamModelChangesByModelId")
+                        .build(),
+                () -> batchSize > 0
+        );
+        return javers.<T>findShadowsAndStream(
+                        QueryBuilder
+                                .byInstanceId(modelId, modelClazz)
+                                .withShadowScope(ShadowScope.SHALLOW)
+                                .limit(batchSize)
+                                .build()
+                )
+                .map(Shadow::get);
     }
 
-    private <T> List<Shadow<T>> getShadowsById(Class<T> modelClazz, String modelId) {
-        return javers.findShadows(
-                QueryBuilder
-                        .byInstanceId(modelId, modelClazz)
+    private <T> List<T> findModelChanges(QueryBuilder queryBuilder) {
+        // the snapshots are already ordered by the server from the last commit
+        List<Shadow<T>> shadows = javers.findShadows(
+                queryBuilder
+                        .withShadowScope(ShadowScope.SHALLOW)
                         .build()
         );
+        return shadows.stream()
+                .map(Shadow::get)
+                .toList();
     }
 
     /**
-     * Get all changes of a model by its id
+     * Return the query builder of a page of the history of a model
      *
      * @param modelClazz model class
      * @param modelId    model id
+     * @param skip       the number of commits to skip
+     * @param limit      the max number of commits to return
+     * @param from       the min commit date (included), null for no bound
+     * @param to         the max commit date (included), null for no bound
      * @param <T>        model type
-     * @return list of changes
+     * @return the query builder
      */
-    private <T> Changes getChangesById(Class<T> modelClazz, String modelId) {
-        return javers.findChanges(QueryBuilder.byInstanceId(modelId, modelClazz).build());
+    private <T> QueryBuilder getPageQueryBuilder(Class<T> modelClazz, String modelId, int skip, int limit, LocalDateTime from, LocalDateTime to) {
+        assertion(
+                ControllerLogicException
+                        .builder()
+                        .errorCode(-1)
+                        .errorMessage("The limit need to be greater than zero and the skip can't be negative")
+                        .errorDomain("ModelHistoryService::getPageQueryBuilder")
+                        .build(),
+                () -> limit > 0 && skip >= 0
+        );
+        QueryBuilder queryBuilder = QueryBuilder.byInstanceId(modelId, modelClazz)
+                .skip(skip)
+                .limit(limit);
+        if (from != null) {
+            queryBuilder.from(from);
+        }
+        if (to != null) {
+            queryBuilder.to(to);
+        }
+        return queryBuilder;
     }
 
     /**
-     * Get all changes of a model by its id
+     * Return the snapshot of the previous version of a model
+     *
+     * @param modelClazz         model class
+     * @param modelId            model id
+     * @param snapshot           the snapshot
+     * @param snapshotsByVersion the snapshots already loaded
+     * @param <T>                model type
+     * @return the previous snapshot, null for the initial one
      */
-    private <T> List<ModelChangeDTO> extractChanges(Changes changes, CommitId commitId) {
-        var result = changes.stream()
-                .filter(
-                        change -> {
-                            boolean selected = change instanceof PropertyChange;
-                            selected = selected && change.getCommitMetadata().isPresent();
-                            selected = selected && change.getCommitMetadata().get().getId().equals(commitId);
-                            return selected;
-                        }
-                )
-                .map(change -> {
-                    PropertyChange propertyChange = (PropertyChange) change;
-                    return ModelChangeDTO.builder()
-                            .fieldName(propertyChange.getPropertyName())
-                            .oldValue(propertyChange.getLeft() != null ? propertyChange.getLeft() : null)
-                            .newValue(propertyChange.getRight() != null ? propertyChange.getRight(): null)
-                            .build();
+    private <T> CdoSnapshot getPreviousSnapshot(Class<T> modelClazz, String modelId, CdoSnapshot snapshot, Map<Long, CdoSnapshot> snapshotsByVersion) {
+        if (snapshot.isInitial()) return null;
+        // only the oldest snapshot of a page or of a time window need to be loaded
+        return snapshotsByVersion.computeIfAbsent(
+                snapshot.getVersion() - 1,
+                version -> javers.findSnapshots(
+                                QueryBuilder
+                                        .byInstanceId(modelId, modelClazz)
+                                        .withVersion(version)
+                                        .build()
+                        )
+                        .stream()
+                        .findFirst()
+                        .orElse(null)
+        );
+    }
 
-                })
-                .toList();
-        result = new LinkedList<>(result); // reverse the order of the list
-        Collections.reverse(result);
-        return result;
+    /**
+     * Return the property changes between two consecutive snapshots, in the reverse order of the model
+     * properties as the changes built by javers were returned
+     *
+     * @param previous the previous snapshot, null for the initial one
+     * @param snapshot the snapshot
+     * @return the changes of the properties changed by the snapshot commit
+     */
+    private List<ModelChangeDTO> getSnapshotChanges(CdoSnapshot previous, CdoSnapshot snapshot) {
+        List<ModelChangeDTO> changes = new ArrayList<>();
+        Set<String> changedProperties = new HashSet<>(snapshot.getChanged());
+        List<JaversProperty> properties = snapshot.getManagedType().getProperties();
+        ListIterator<JaversProperty> iterator = properties.listIterator(properties.size());
+        while (iterator.hasPrevious()) {
+            JaversProperty property = iterator.previous();
+            // the id is not a change of the model
+            if (!changedProperties.contains(property.getName()) || property.looksLikeId()) continue;
+            String propertyName = property.getName();
+            changes.add(
+                    ModelChangeDTO.builder()
+                            .fieldName(propertyName)
+                            .oldValue(previous != null ? previous.getPropertyValue(propertyName) : null)
+                            .newValue(snapshot.getPropertyValue(propertyName))
+                            .build()
+            );
+        }
+        return changes;
     }
 }
@@ -0,0 +1,255 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.service;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.cache.GroupMembershipCache;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.repository.reactive.ReactiveAuthenticationTokenRepository;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.repository.reactive.ReactiveAuthorizationRepository;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.repository.reactive.ReactiveLocalGroupRepository;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationOwnerTypeDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v1.mapper.AuthMapper;
+import edu.stanford.slac.ad.eed.baselib.config.AppProperties;
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.ad.eed.baselib.model.AuthenticationToken;
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.ad.eed.baselib.model.AuthorizationOwnerType;
+import edu.stanford.slac.ad.eed.baselib.model.LocalGroup;
+import lombok.extern.log4j.Log4j2;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Non-blocking variant of the permission checks of {@link AuthServiceImpl}, for the services that run on an event loop.
+ * <p>
+ * The database is accessed with the reactive driver; only the ldap group search, that has no reactive client,
+ * is moved on the bounded elastic scheduler. The management operations remain on {@link AuthServiceImpl}.
+ * The bean is created by the reactive configuration when enabled.
+ */
+@Log4j2
+public class ReactiveAuthServiceImpl {
+    private final AuthMapper authMapper;
+    private final AppProperties appProperties;
+    private final ReactiveAuthorizationRepository reactiveAuthorizationRepository;
+    private final ReactiveAuthenticationTokenRepository reactiveAuthenticationTokenRepository;
+    private final ReactiveLocalGroupRepository reactiveLocalGroupRepository;
+    private final GroupMembershipCache groupMembershipCache;
+
+    /**
+     * Constructor
+     *
+     * @param authMapper                            the auth mapper
+     * @param appProperties                         the app properties
+     * @param reactiveAuthorizationRepository       the reactive authorization repository
+     * @param reactiveAuthenticationTokenRepository the reactive authentication token repository
+     * @param reactiveLocalGroupRepository          the reactive local group repository
+     * @param groupMembershipCache                  the ldap group membership cache
+     */
+    public ReactiveAuthServiceImpl(AuthMapper authMapper, AppProperties appProperties, ReactiveAuthorizationRepository reactiveAuthorizationRepository, ReactiveAuthenticationTokenRepository reactiveAuthenticationTokenRepository, ReactiveLocalGroupRepository reactiveLocalGroupRepository, GroupMembershipCache groupMembershipCache) {
+        this.authMapper = authMapper;
+        this.appProperties = appProperties;
+        this.reactiveAuthorizationRepository = reactiveAuthorizationRepository;
+        this.reactiveAuthenticationTokenRepository = reactiveAuthenticationTokenRepository;
+        this.reactiveLocalGroupRepository = reactiveLocalGroupRepository;
+        this.groupMembershipCache = groupMembershipCache;
+    }
+
+    /**
+     * Return all the authorizations for an owner that match with the prefix and the authorizations type,
+     * if requested also those of the groups where the user belongs
+     *
+     * @param ownerId                     the owner target of the result authorizations
+     * @param authorizationType           filter on the @Authorization.Type
+     * @param resourcePrefix              is the prefix of the authorized resource
+     * @param allHigherAuthOnSameResource return only the higher authorization for each resource
+     * @param includeGroupForUser         include the authorizations of the user groups
+     * @return the found authorizations
+     */
+    public Flux<AuthorizationDTO> getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(String ownerId, AuthorizationTypeDTO authorizationType, String resourcePrefix, Optional<Boolean> allHigherAuthOnSameResource, Optional<Boolean> includeGroupForUser) {
+        Integer minAuthorizationType = authMapper.toModel(authorizationType).getValue();
+        return resolveOwner(ownerId, includeGroupForUser.orElse(false))
+                .flatMapMany(
+                        resolvedOwner -> allHigherAuthOnSameResource.orElse(false) ?
+                                reactiveAuthorizationRepository.findHigherByOwnerAndGroupsAndAuthorizationTypeAndResourcePrefix(
+                                        resolvedOwner.realOwnerId(),
+                                        getOwnerType(resolvedOwner.realOwnerId()),
+                                        resolvedOwner.groups(),
+                                        minAuthorizationType,
+                                        resourcePrefix
+                                ) :
+                                reactiveAuthorizationRepository.findAllByOwnerAndGroupsAndAuthorizationTypeAndResourcePrefix(
+                                        resolvedOwner.realOwnerId(),
+                                        getOwnerType(resolvedOwner.realOwnerId()),
+                                        resolvedOwner.groups(),
+                                        minAuthorizationType,
+                                        resourcePrefix
+                                )
+                )
+                .map(authMapper::fromModel)
+                .onErrorMap(wrapError(-1, "ReactiveAuthService::getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix"));
+    }
+
+    /**
+     * Check, with a single limit-1 query, if an owner has at least the authorization type on a resource
+     * that start with the prefix. The root authorization and, if requested, the user groups are also considered
+     *
+     * @param ownerId             the owner to check
+     * @param authorizationType   the minimum authorization type
+     * @param resourcePrefix      the prefix of the authorized resource
+     * @param includeGroupForUser check also the authorizations of the user groups
+     * @return true if the owner is authorized
+     */
+    public Mono<Boolean> hasAuthorizationForOwnerAndAuthTypeAndResourcePrefix(String ownerId, AuthorizationTypeDTO authorizationType, String resourcePrefix, Optional<Boolean> includeGroupForUser) {
+        Integer minAuthorizationType = authMapper.toModel(authorizationType).getValue();
+        return resolveOwner(ownerId, includeGroupForUser.orElse(false))
+                .flatMap(
+                        resolvedOwner -> reactiveAuthorizationRepository.existsByOwnerAndGroupsAndAuthorizationTypeAndResourcePrefix(
+                                resolvedOwner.realOwnerId(),
+                                getOwnerType(resolvedOwner.realOwnerId()),
+                                resolvedOwner.groups(),
+                                minAuthorizationType,
+                                resourcePrefix
+                        )
+                )
+                .onErrorMap(wrapError(-1, "ReactiveAuthService::hasAuthorizationForOwnerAndAuthTypeAndResourcePrefix"));
+    }
+
+    /**
+     * Return all the authorizations of an owner and, if requested, those inherited by his groups
+     *
+     * @param owner                       the owner
+     * @param ownerType                   the owner type
+     * @param allHigherAuthOnSameResource return only the higher authorization for each resource
+     * @param includeInherited            include the authorizations of the user groups
+     * @return the found authorizations
+     */
+    public Flux<AuthorizationDTO> getAllAuthenticationForOwner(String owner, AuthorizationOwnerTypeDTO ownerType, Optional<Boolean> allHigherAuthOnSameResource, Optional<Boolean> includeInherited) {
+        AuthorizationOwnerType ownerTypeModel = authMapper.toModel(ownerType);
+        Mono<List<String>> userGroups = includeInherited.orElse(false) ?
+                getGroupByUserId(owner) :
+                Mono.just(List.of());
+        return userGroups
+                .flatMapMany(
+                        groups -> allHigherAuthOnSameResource.orElse(false) ?
+                                reactiveAuthorizationRepository.findHigherByOwnerAndResourcePrefixAndGroups(owner, ownerTypeModel, null, groups) :
+                                reactiveAuthorizationRepository.findAllByOwnerAndResourcePrefixAndGroups(owner, ownerTypeModel, null, groups)
+                )
+                .map(authMapper::fromModel)
+                .onErrorMap(wrapError(-1, "ReactiveAuthService::getAllAuthenticationForOwner"));
+    }
+
+    /**
+     * Return all root authorization
+     *
+     * @return all the root authorization
+     */
+    public Flux<AuthorizationDTO> findAllRoot() {
+        return reactiveAuthorizationRepository.findByResourceIs("*")
+                .map(authMapper::fromModel)
+                .onErrorMap(wrapError(-1, "ReactiveAuthService::findAllRoot"));
+    }
+
+    /**
+     * Check if the user can manage the local groups
+     *
+     * @param userId the user id
+     * @return true if the user can manage the groups
+     */
+    public Mono<Boolean> canManageGroup(String userId) {
+        boolean isAppToken = appProperties.isAuthenticationToken(userId);
+        return reactiveAuthorizationRepository.existsByOwnerAndAuthorizationTypeAndResourcePrefix(
+                        userId,
+                        isAppToken ? AuthorizationOwnerType.Token : AuthorizationOwnerType.User,
+                        Authorization.Type.Admin.getValue(),
+                        "%s/group".formatted(appProperties.getAppName())
+                )
+                .onErrorMap(wrapError(-1, "ReactiveAuthService::canManageGroup"));
+    }
+
+    /**
+     * The real id of an owner along with the groups where it belongs
+     *
+     * @param realOwnerId the owner id, or the token id if the owner is the email of a token
+     * @param groups      the ldap and local groups of the owner
+     */
+    private record ResolvedOwner(String realOwnerId, List<String> groups) {
+    }
+
+    /**
+     * Resolve the real id of the owner and, if requested, the groups where it belongs.
+     * The groups are those of the real id, so they are looked up once the id is resolved
+     *
+     * @param ownerId       the owner id
+     * @param includeGroups if true resolve also the groups
+     * @return the resolved owner
+     */
+    private Mono<ResolvedOwner> resolveOwner(String ownerId, boolean includeGroups) {
+        return returnRealId(ownerId)
+                .flatMap(
+                        realOwnerId -> includeGroups ?
+                                getGroupByUserId(realOwnerId).map(groups -> new ResolvedOwner(realOwnerId, groups)) :
+                                Mono.just(new ResolvedOwner(realOwnerId, List.of()))
+                );
+    }
+
+    /**
+     * Return all the groups where the user belongs, the ldap and the local groups are searched concurrently
+     *
+     * @param ownerId the user id
+     * @return the ldap and local group ids
+     */
+    private Mono<List<String>> getGroupByUserId(String ownerId) {
+        // the ldap client is blocking
+        Mono<List<String>> ldapGroups = Mono.fromCallable(() -> groupMembershipCache.get(ownerId))
+                .subscribeOn(Schedulers.boundedElastic());
+        Mono<List<String>> localGroups = reactiveLocalGroupRepository.findAllByMembersContains(ownerId)
+                .map(LocalGroup::getId)
+                .collectList();
+        return Mono.zip(ldapGroups, localGroups)
+                .map(
+                        groups -> {
+                            List<String> userGroups = new ArrayList<>(groups.getT1());
+                            userGroups.addAll(groups.getT2());
+                            return userGroups;
+                        }
+                );
+    }
+
+    /**
+     * Return the token id if the owner is the email of a token, otherwise the owner itself
+     *
+     * @param ownerId the owner id
+     * @return the real id of the owner
+     */
+    private Mono<String> returnRealId(String ownerId) {
+        return reactiveAuthenticationTokenRepository.findByEmailIs(ownerId)
+                .map(AuthenticationToken::getId)
+                .defaultIfEmpty(ownerId);
+    }
+
+    private static AuthorizationOwnerType getOwnerType(String realOwnerId) {
+        return realOwnerId.contains("@") ? AuthorizationOwnerType.User : AuthorizationOwnerType.Token;
+    }
+
+    /**
+     * Wrap the unexpected errors in a {@link ControllerLogicException}
+     *
+     * @param errorCode   the error code
+     * @param errorDomain the error domain
+     * @return the error mapper
+     */
+    private static Function<Throwable, Throwable> wrapError(int errorCode, String errorDomain) {
+        return error -> error instanceof ControllerLogicException ?
+                error :
+                ControllerLogicException.builder()
+                        .errorCode(errorCode)
+                        .errorMessage(error.getMessage())
+                        .errorDomain(errorDomain)
+                        .build();
+    }
+}
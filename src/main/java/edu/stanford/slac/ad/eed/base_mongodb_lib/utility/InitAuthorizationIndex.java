@@ -63,6 +63,55 @@ public class InitAuthorizationIndex extends MongoDDLOps {
                         .sparse()
                         .named("ownerAuthResourceUnique")
         );
+        // equality on owner and owner type, range on resource prefix and authorization type
+        MongoDDLOps.createIndex(
+                Authorization.class,
+                mongoTemplate,
+                new Index()
+                        .on(
+                                "owner",
+                                Sort.Direction.ASC
+                        )
+                        .on(
+                                "ownerType",
+                                Sort.Direction.ASC
+                        )
+                        .on(
+                                "resource",
+                                Sort.Direction.ASC
+                        )
+                        .on(
+                                "authorizationType",
+                                Sort.Direction.ASC
+                        )
+                        .named("ownerOwnerTypeResourceAuthorizationType")
+        );
+        // equality on resource and owner type, range on authorization type, owner to cover the projection
+        // the index was named without its owner key, the server refuse a second name for the same keys
+        MongoDDLOps.checkForIndex(Authorization.class, mongoTemplate, "resourceOwnerTypeAuthorizationType")
+                .ifPresent(indexInfo -> mongoTemplate.indexOps(Authorization.class).dropIndex(indexInfo.getName()));
+        MongoDDLOps.createIndex(
+                Authorization.class,
+                mongoTemplate,
+                new Index()
+                        .on(
+                                "resource",
+                                Sort.Direction.ASC
+                        )
+                        .on(
+                                "ownerType",
+                                Sort.Direction.ASC
+                        )
+                        .on(
+                                "authorizationType",
+                                Sort.Direction.ASC
+                        )
+                        .on(
+                                "owner",
+                                Sort.Direction.ASC
+                        )
+                        .named("resourceOwnerTypeAuthorizationTypeOwner")
+        );
 
         // create index on local group
         MongoDDLOps.createIndex(
@@ -117,6 +166,21 @@ public class InitAuthorizationIndex extends MongoDDLOps {
                         )
                         .named("createDateIndex")
         );
+        // keyset pagination, the id break the tie on the same creation date
+        MongoDDLOps.createIndex(
+                AuthenticationToken.class,
+                mongoTemplate,
+                new Index()
+                        .on(
+                                "createdDate",
+                                Sort.Direction.ASC
+                        )
+                        .on(
+                                "_id",
+                                Sort.Direction.ASC
+                        )
+                        .named("createdDateIdIndex")
+        );
         MongoDDLOps.createIndex(
                 AuthenticationToken.class,
                 mongoTemplate,
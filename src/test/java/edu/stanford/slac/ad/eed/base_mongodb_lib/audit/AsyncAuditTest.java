@@ -0,0 +1,194 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.audit;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.config.MongoDBProperties;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.model.TestChangeModelPrimitive;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.model.TestChangeModelPrimitiveRepository;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.ModelChangeDTO;
+import edu.stanford.slac.ad.eed.baselib.service.ModelHistoryService;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.javers.core.Javers;
+import org.javers.repository.jql.QueryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@AutoConfigureMockMvc
+@SpringBootTest(
+        properties = {
+                "javers.springDataAuditableRepositoryAspectEnabled=false",
+                "edu.stanford.slac.ad.eed.mongodb.async-audit.enabled=true",
+                "edu.stanford.slac.ad.eed.mongodb.async-audit.queue-size=4",
+                "edu.stanford.slac.ad.eed.mongodb.async-audit.batch-size=3"
+        }
+)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class AsyncAuditTest {
+    @Autowired
+    private AsyncAuditCommitter asyncAuditCommitter;
+    @Autowired
+    private TestChangeModelPrimitiveRepository testChangeModelPrimitiveRepository;
+    @Autowired
+    private ModelHistoryService modelHistoryService;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private Javers javers;
+
+    @BeforeEach
+    public void preTest() {
+        mongoTemplate.remove(new Query(), TestChangeModelPrimitive.class);
+        mongoTemplate.getDb().getCollection("jv_snapshots").deleteMany(new Document());
+        mongoTemplate.getDb().getCollection("jv_head_id").deleteMany(new Document());
+    }
+
+    @Test
+    public void everyVersionIsCommittedInOrder() {
+        var savedTestModel = assertDoesNotThrow(() -> testChangeModelPrimitiveRepository.save(
+                        TestChangeModelPrimitive
+                                .builder()
+                                .stringField1("revision-0")
+                                .build()
+                )
+        );
+        var lastTestModel = savedTestModel;
+        for (int idx = 1; idx < 10; idx++) {
+            var toUpdate = lastTestModel.toBuilder()
+                    .stringField1("revision-%d".formatted(idx))
+                    .build();
+            lastTestModel = assertDoesNotThrow(() -> testChangeModelPrimitiveRepository.save(toUpdate));
+        }
+        assertThat(asyncAuditCommitter.flush(Duration.ofSeconds(30))).isTrue();
+
+        var listOfChanges = assertDoesNotThrow(() -> modelHistoryService.findChangesByModelId(TestChangeModelPrimitive.class, savedTestModel.getId()));
+        assertThat(listOfChanges).hasSize(10);
+        for (int idx = 0; idx < 10; idx++) {
+            assertThat(listOfChanges.get(idx).changes())
+                    .filteredOn(change -> "stringField1".equals(change.fieldName()))
+                    .extracting(ModelChangeDTO::newValue)
+                    .containsExactly("revision-%d".formatted(9 - idx));
+        }
+    }
+
+    @Test
+    public void differentEntitiesAreCommittedTogether() {
+        List<TestChangeModelPrimitive> savedTestModels = new ArrayList<>();
+        for (int idx = 0; idx < 20; idx++) {
+            int finalIdx = idx;
+            savedTestModels.add(
+                    assertDoesNotThrow(() -> testChangeModelPrimitiveRepository.save(
+                                    TestChangeModelPrimitive
+                                            .builder()
+                                            .stringField1("model-%d".formatted(finalIdx))
+                                            .build()
+                            )
+                    )
+            );
+        }
+        assertThat(asyncAuditCommitter.flush(Duration.ofSeconds(30))).isTrue();
+
+        for (TestChangeModelPrimitive savedTestModel : savedTestModels) {
+            var listOfChanges = assertDoesNotThrow(() -> modelHistoryService.findChangesByModelId(TestChangeModelPrimitive.class, savedTestModel.getId()));
+            assertThat(listOfChanges).hasSize(1);
+            assertThat(listOfChanges.get(0).changes())
+                    .extracting(ModelChangeDTO::newValue)
+                    .contains(savedTestModel.getStringField1());
+        }
+        // the saves have been batched in less commits than entities
+        List<BsonValue> commitIds = new ArrayList<>();
+        mongoTemplate.getDb().getCollection("jv_snapshots").distinct("commitMetadata.id", BsonValue.class).into(commitIds);
+        assertThat(commitIds).hasSizeLessThan(20);
+    }
+
+    @Test
+    public void changesAfterTheSaveAreNotCommitted() {
+        var savedTestModel = assertDoesNotThrow(() -> testChangeModelPrimitiveRepository.save(
+                        TestChangeModelPrimitive
+                                .builder()
+                                .stringField1("saved")
+                                .build()
+                )
+        );
+        // the caller change the entity returned by the save without saving it again
+        savedTestModel.setStringField1("changed-after-save");
+        assertThat(asyncAuditCommitter.flush(Duration.ofSeconds(30))).isTrue();
+
+        var listOfChanges = assertDoesNotThrow(() -> modelHistoryService.findChangesByModelId(TestChangeModelPrimitive.class, savedTestModel.getId()));
+        assertThat(listOfChanges).hasSize(1);
+        assertThat(listOfChanges.get(0).changes())
+                .filteredOn(change -> "stringField1".equals(change.fieldName()))
+                .extracting(ModelChangeDTO::newValue)
+                .containsExactly("saved");
+    }
+
+    @Test
+    public void bulkDeletesAreCommitted() {
+        List<TestChangeModelPrimitive> savedTestModels = new ArrayList<>();
+        for (int idx = 0; idx < 5; idx++) {
+            int finalIdx = idx;
+            savedTestModels.add(
+                    assertDoesNotThrow(() -> testChangeModelPrimitiveRepository.save(
+                                    TestChangeModelPrimitive
+                                            .builder()
+                                            .stringField1("model-%d".formatted(finalIdx))
+                                            .build()
+                            )
+                    )
+            );
+        }
+        assertDoesNotThrow(() -> testChangeModelPrimitiveRepository.deleteAll(savedTestModels.subList(0, 2)));
+        assertDoesNotThrow(() -> testChangeModelPrimitiveRepository.deleteAllById(List.of(savedTestModels.get(2).getId())));
+        assertDoesNotThrow(() -> testChangeModelPrimitiveRepository.deleteAll());
+        assertThat(asyncAuditCommitter.flush(Duration.ofSeconds(30))).isTrue();
+
+        for (TestChangeModelPrimitive savedTestModel : savedTestModels) {
+            var lastSnapshot = javers.findSnapshots(
+                    QueryBuilder.byInstanceId(savedTestModel.getId(), TestChangeModelPrimitive.class).limit(1).build()
+            );
+            assertThat(lastSnapshot).hasSize(1);
+            assertThat(lastSnapshot.get(0).isTerminal()).as("model %s deleted", savedTestModel.getStringField1()).isTrue();
+        }
+    }
+
+    @Test
+    public void failedCommitsAreRetriedAndCounted() {
+        Javers failingJavers = mock(Javers.class);
+        when(failingJavers.commitShallowDeleteById(anyString(), any())).thenThrow(new RuntimeException("javers is down"));
+        MongoDBProperties.AsyncAuditProperties properties = new MongoDBProperties.AsyncAuditProperties();
+        properties.setMaxCommitAttempts(2);
+        AsyncAuditCommitter failingCommitter = new AsyncAuditCommitter(failingJavers, mongoTemplate.getConverter(), properties);
+        try {
+            failingCommitter.enqueueDeleteById("test", "deleted-id", TestChangeModelPrimitive.class);
+            assertThat(failingCommitter.flush(Duration.ofSeconds(30))).isFalse();
+            assertThat(failingCommitter.getFailedCommits()).isEqualTo(1);
+            verify(failingJavers, times(2)).commitShallowDeleteById(anyString(), any());
+        } finally {
+            assertDoesNotThrow(failingCommitter::destroy);
+        }
+    }
+}
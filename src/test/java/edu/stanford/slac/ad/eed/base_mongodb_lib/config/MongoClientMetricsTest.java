@@ -0,0 +1,70 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.config;
+
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class MongoClientMetricsTest {
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @TestConfiguration
+    static class MeterRegistryConfiguration {
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Test
+    public void commandsAreTimedByCollectionAndClient() {
+        assertDoesNotThrow(() -> mongoTemplate.find(new Query(), Authorization.class));
+        String collectionName = mongoTemplate.getCollectionName(Authorization.class);
+        assertThat(
+                meterRegistry.find("mongodb.driver.commands")
+                        .tag("command", "find")
+                        .tag("collection", collectionName)
+                        .tag(MongoClientMetrics.CLIENT_TAG, "application")
+                        .timers()
+        ).isNotEmpty();
+    }
+
+    @Test
+    public void connectionPoolsHaveGauges() {
+        assertDoesNotThrow(() -> mongoTemplate.count(new Query(), Authorization.class));
+        assertThat(
+                meterRegistry.find("mongodb.driver.pool.checkedout")
+                        .tag(MongoClientMetrics.CLIENT_TAG, "application")
+                        .gauges()
+        ).isNotEmpty();
+        assertThat(
+                meterRegistry.find("mongodb.driver.pool.waitqueuesize")
+                        .tag(MongoClientMetrics.CLIENT_TAG, "admin")
+                        .gauges()
+        ).isNotEmpty();
+    }
+}
@@ -0,0 +1,61 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.config;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ReadPreference;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+
+@AutoConfigureMockMvc
+@SpringBootTest(
+        properties = {
+                "edu.stanford.slac.ad.eed.mongodb.client.max-pool-size=42",
+                "edu.stanford.slac.ad.eed.mongodb.client.max-wait-time=3s",
+                "edu.stanford.slac.ad.eed.mongodb.client.read-preference=secondaryPreferred",
+                "edu.stanford.slac.ad.eed.mongodb.client.compressors=zlib"
+        }
+)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class MongoClientPropertiesCustomizerTest {
+    @Autowired
+    private MongoDBProperties mongoDBProperties;
+
+    @Test
+    public void propertiesAreAppliedWhenNotInUri() {
+        MongoClientSettings settings = buildSettings("mongodb://localhost:27017/test");
+        assertThat(settings.getConnectionPoolSettings().getMaxSize()).isEqualTo(42);
+        assertThat(settings.getConnectionPoolSettings().getMaxWaitTime(TimeUnit.MILLISECONDS)).isEqualTo(3000);
+        assertThat(settings.getReadPreference()).isEqualTo(ReadPreference.secondaryPreferred());
+        assertThat(settings.getCompressorList()).hasSize(1);
+        assertThat(settings.getCompressorList().get(0).getName()).isEqualTo("zlib");
+    }
+
+    @Test
+    public void uriOptionsTakePrecedence() {
+        MongoClientSettings settings = buildSettings("mongodb://localhost:27017/test?maxPoolSize=7&readPreference=primary");
+        assertThat(settings.getConnectionPoolSettings().getMaxSize()).isEqualTo(7);
+        assertThat(settings.getReadPreference()).isEqualTo(ReadPreference.primary());
+        // the option not present in the uri still come from the properties
+        assertThat(settings.getConnectionPoolSettings().getMaxWaitTime(TimeUnit.MILLISECONDS)).isEqualTo(3000);
+    }
+
+    private MongoClientSettings buildSettings(String uri) {
+        MongoClientSettings.Builder builder = MongoClientSettings.builder().applyConnectionString(new ConnectionString(uri));
+        new MongoClientPropertiesCustomizer(mongoDBProperties.getClient(), uri).customize(builder);
+        return builder.build();
+    }
+}
@@ -0,0 +1,102 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.repository;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.utility.InitAuthorizationIndex;
+import edu.stanford.slac.ad.eed.baselib.model.AuthenticationToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class AuthenticationTokenRepositoryTest {
+    @Autowired
+    private AuthenticationTokenRepository authenticationTokenRepository;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    public void preTest() {
+        mongoTemplate.remove(new Query(), AuthenticationToken.class);
+        InitAuthorizationIndex initAuthorizationIndex = new InitAuthorizationIndex(mongoTemplate);
+        initAuthorizationIndex.updateIndex();
+    }
+
+    @Test
+    public void keysetPagesDoNotSkipOrRepeatTokensWithSameCreatedDate() {
+        // all the tokens share the same creation date
+        LocalDateTime createdDate = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        List<String> createdIds = new ArrayList<>();
+        for (int idx = 0; idx < 25; idx++) {
+            int finalIdx = idx;
+            var token = assertDoesNotThrow(
+                    () -> mongoTemplate.insert(
+                            AuthenticationToken
+                                    .builder()
+                                    .name("token-%d".formatted(finalIdx))
+                                    .email("token-%d@test.slac.app".formatted(finalIdx))
+                                    .createdDate(createdDate)
+                                    .build()
+                    )
+            );
+            createdIds.add(token.getId());
+        }
+
+        List<String> foundIds = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            String finalCursor = cursor;
+            var page = assertDoesNotThrow(() -> authenticationTokenRepository.findPage(finalCursor, 10, null));
+            assertThat(page.content()).hasSizeLessThanOrEqualTo(10);
+            page.content().forEach(token -> foundIds.add(token.getId()));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(foundIds)
+                .doesNotHaveDuplicates()
+                .containsExactlyInAnyOrderElementsOf(createdIds);
+    }
+
+    @Test
+    public void lastFullPageHasNoNextCursor() {
+        for (int idx = 0; idx < 10; idx++) {
+            int finalIdx = idx;
+            assertDoesNotThrow(
+                    () -> mongoTemplate.insert(
+                            AuthenticationToken
+                                    .builder()
+                                    .name("token-%d".formatted(finalIdx))
+                                    .email("token-%d@test.slac.app".formatted(finalIdx))
+                                    .createdDate(LocalDateTime.now())
+                                    .build()
+                    )
+            );
+        }
+        var page = assertDoesNotThrow(() -> authenticationTokenRepository.findPage(null, 10, null));
+        assertThat(page.content()).hasSize(10);
+        assertThat(page.nextCursor()).isNull();
+    }
+}
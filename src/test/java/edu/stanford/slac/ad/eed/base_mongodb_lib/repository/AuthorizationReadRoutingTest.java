@@ -0,0 +1,94 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.repository;
+
+import com.mongodb.ReadPreference;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.config.MongoDBProperties;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.config.ReadRouting;
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static edu.stanford.slac.ad.eed.baselib.model.AuthorizationOwnerType.User;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@AutoConfigureMockMvc
+@SpringBootTest(
+        properties = {
+                "edu.stanford.slac.ad.eed.mongodb.read-routing.enabled=true",
+                "edu.stanford.slac.ad.eed.mongodb.read-routing.read-preference=secondaryPreferred",
+                "edu.stanford.slac.ad.eed.mongodb.read-routing.max-staleness=120s"
+        }
+)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class AuthorizationReadRoutingTest {
+    @Autowired
+    private AuthorizationRepositoryImpl authorizationRepositoryImpl;
+    @Autowired
+    private AuthorizationRepository authorizationRepository;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    public void preTest() {
+        mongoTemplate.remove(new Query(), Authorization.class);
+    }
+
+    @Test
+    public void permissionChecksAreRoutedWithMaxStaleness() {
+        assertThat(authorizationRepositoryImpl.readMongoTemplate.getReadPreference())
+                .isEqualTo(ReadPreference.secondaryPreferred(120, TimeUnit.SECONDS));
+        // the writes stay on the application template
+        assertThat(authorizationRepositoryImpl.mongoTemplate).isSameAs(mongoTemplate);
+
+        String id = assertDoesNotThrow(
+                () -> authorizationRepository.ensureAuthorization(
+                        Authorization.builder()
+                                .authorizationType(Authorization.Type.Read.getValue())
+                                .owner("user1@slac.stanford.edu")
+                                .ownerType(User)
+                                .resource("/routing/r1")
+                                .build()
+                )
+        );
+        assertThat(id).isNotNull();
+        // on a standalone server the secondary preferred reads fall back to the primary
+        Boolean exists = assertDoesNotThrow(
+                () -> authorizationRepository.existsByOwnerAndAuthorizationTypeAndResourcePrefix(
+                        "user1@slac.stanford.edu",
+                        User,
+                        Authorization.Type.Read.getValue(),
+                        "/routing"
+                )
+        );
+        assertThat(exists).isTrue();
+    }
+
+    @Test
+    public void primaryHasNoStalenessBound() {
+        MongoDBProperties.ReadRoutingProperties properties = new MongoDBProperties.ReadRoutingProperties();
+        properties.setReadPreference("primary");
+        assertThat(ReadRouting.readPreference(properties)).isEqualTo(ReadPreference.primary());
+
+        properties.setReadPreference("secondaryPreferred");
+        properties.setMaxStaleness(Duration.ofSeconds(10));
+        assertThrows(ControllerLogicException.class, () -> ReadRouting.readPreference(properties));
+    }
+}
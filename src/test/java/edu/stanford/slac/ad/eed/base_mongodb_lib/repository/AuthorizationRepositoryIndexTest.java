@@ -0,0 +1,358 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.repository;
+
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.client.FindIterable;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.utility.InitAuthorizationIndex;
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.ad.eed.baselib.model.AuthorizationOwnerType;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static edu.stanford.slac.ad.eed.baselib.model.AuthorizationOwnerType.Group;
+import static edu.stanford.slac.ad.eed.baselib.model.AuthorizationOwnerType.Token;
+import static edu.stanford.slac.ad.eed.baselib.model.AuthorizationOwnerType.User;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+/**
+ * Check that the queries of {@link AuthorizationRepository} are answered by the expected index.
+ * <p>
+ * The queries of the custom repository are built by the same criteria helpers used by {@link AuthorizationRepositoryImpl}.
+ * Each owner has also authorizations with another owner type, and each resource with other owners, so only the
+ * compound indexes can skip them and win the plan selection against the single field indexes.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class AuthorizationRepositoryIndexTest {
+    private static final String OWNER_INDEX = "ownerOwnerTypeResourceAuthorizationType";
+    private static final String RESOURCE_INDEX = "resourceOwnerTypeAuthorizationTypeOwner";
+    private static final String OWNER_RESOURCE_UNIQUE_INDEX = "ownerAuthResourceUnique";
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private AuthorizationRepository authorizationRepository;
+
+    @BeforeAll
+    public void preTest() {
+        mongoTemplate.remove(new Query(), Authorization.class);
+        InitAuthorizationIndex initAuthorizationIndex = new InitAuthorizationIndex(mongoTemplate);
+        initAuthorizationIndex.updateIndex();
+        List<Authorization> authorizations = new ArrayList<>();
+        for (int user = 0; user < 20; user++) {
+            String owner = "user%d@slac.stanford.edu".formatted(user);
+            for (int idx = 0; idx < 6; idx++) {
+                authorizations.add(authorization(owner, User, "/r%d/%d".formatted(user, idx), idx));
+                authorizations.add(authorization(owner, Token, "/r%d/t%d".formatted(user, idx), idx));
+            }
+            authorizations.add(authorization(owner, user % 2 == 0 ? User : Token, "*", Authorization.Type.Admin.ordinal()));
+        }
+        for (int group = 0; group < 10; group++) {
+            String owner = "group-%d".formatted(group);
+            for (int idx = 0; idx < 6; idx++) {
+                authorizations.add(authorization(owner, Group, "/r/g%d/%d".formatted(group, idx), idx));
+                authorizations.add(authorization(owner, User, "/r/g%d/u%d".formatted(group, idx), idx));
+            }
+        }
+        assertDoesNotThrow(() -> mongoTemplate.insertAll(authorizations));
+    }
+
+    @Test
+    public void findAllByOwnerAndGroupsAndAuthorizationTypeAndResourcePrefix() {
+        Query query = new Query(
+                AuthorizationRepositoryImpl.getOwnerAndGroupsAndAuthorizationTypeAndResourcePrefixCriteria(
+                        "user2@slac.stanford.edu",
+                        User,
+                        List.of("group-1", "group-3"),
+                        Authorization.Type.Admin.getValue(),
+                        "/r"
+                )
+        );
+        assertThat(getIndexNames(query)).isNotEmpty().containsOnly(OWNER_INDEX);
+    }
+
+    @Test
+    public void findAllByOwnerAndResourcePrefixAndGroups() {
+        Query query = new Query(
+                AuthorizationRepositoryImpl.getOwnerAndResourcePrefixAndGroupsCriteria(
+                        "user2@slac.stanford.edu",
+                        User,
+                        "/r2",
+                        List.of("group-1", "group-3")
+                )
+        );
+        assertThat(getIndexNames(query)).isNotEmpty().containsOnly(OWNER_INDEX);
+    }
+
+    @Test
+    public void existsByOwnerAndGroupsAndAuthorizationTypeAndResourcePrefix() {
+        Query query = AuthorizationRepositoryImpl.getExistsQuery(
+                "user2@slac.stanford.edu",
+                User,
+                List.of("group-1", "group-3"),
+                Authorization.Type.Write.getValue(),
+                "/r"
+        );
+        // the root branches, equality on owner and resource, can be answered by the unique index too
+        assertThat(getIndexNames(query))
+                .contains(OWNER_INDEX)
+                .containsOnly(OWNER_INDEX, OWNER_RESOURCE_UNIQUE_INDEX);
+    }
+
+    @Test
+    public void existsByOwnerAndAuthorizationTypeAndResourcePrefix() {
+        Query query = AuthorizationRepositoryImpl.getOwnerExistsQuery(
+                "user2@slac.stanford.edu",
+                User,
+                Authorization.Type.Admin.getValue(),
+                "/r2"
+        );
+        assertThat(getIndexNames(query)).isNotEmpty().containsOnly(OWNER_INDEX);
+    }
+
+    @Test
+    public void findProjectionByResourceAndAuthorizationTypeAndOwnerTypeIsCovered() {
+        Query query = AuthorizationRepositoryImpl.getProjectionQuery(
+                AuthorizationRepositoryImpl.getResourceAndAuthorizationTypeAndOwnerTypeCriteria(
+                        "*",
+                        Authorization.Type.Admin.getValue(),
+                        User
+                )
+        );
+        assertThat(getIndexNames(query)).isNotEmpty().containsOnly(RESOURCE_INDEX);
+        assertCoveredQuery(query);
+    }
+
+    // the derived queries, written as spring data generate them
+
+    @Test
+    public void findByOwnerAndOwnerTypeAndAuthorizationTypeIsGreaterThanEqualAndResourceStartingWith() {
+        assertThat(
+                getIndexNames(
+                        new Document("owner", "user2@slac.stanford.edu")
+                                .append("ownerType", User.name())
+                                .append("authorizationType", new Document("$gte", Authorization.Type.Write.getValue()))
+                                .append("resource", startingWith("/r"))
+                )
+        ).isNotEmpty().containsOnly(OWNER_INDEX);
+    }
+
+    @Test
+    public void findByResourceIsAndAuthorizationTypeIsGreaterThanEqualAndOwnerTypeIs() {
+        assertThat(
+                getIndexNames(
+                        new Document("resource", "*")
+                                .append("authorizationType", new Document("$gte", Authorization.Type.Admin.getValue()))
+                                .append("ownerType", User.name())
+                )
+        ).isNotEmpty().containsOnly(RESOURCE_INDEX);
+    }
+
+    @Test
+    public void findByOwnerIsAndResourceIsAndAuthorizationTypeIs() {
+        assertIndexScan(
+                new Document("owner", "user2@slac.stanford.edu")
+                        .append("resource", "/r2/0")
+                        .append("authorizationType", Authorization.Type.Read.getValue())
+        );
+    }
+
+    @Test
+    public void findByOwnerIsAndResourceIsAndAuthorizationTypeIsGreaterThanEqual() {
+        assertIndexScan(
+                new Document("owner", "user2@slac.stanford.edu")
+                        .append(
+                                "$or",
+                                List.of(
+                                        new Document("resource", "/r2/0").append("authorizationType", new Document("$gte", Authorization.Type.Read.getValue())),
+                                        new Document("authorizationType", 2).append("resource", "*")
+                                )
+                        )
+        );
+    }
+
+    @Test
+    public void findByResourceIs() {
+        assertIndexScan(new Document("resource", "/r2/0"));
+    }
+
+    @Test
+    public void findByResourceIsAndOwnerIn() {
+        assertIndexScan(
+                new Document("resource", "*")
+                        .append("owner", new Document("$in", List.of("user2@slac.stanford.edu", "user4@slac.stanford.edu")))
+        );
+    }
+
+    @Test
+    public void findByResourceIsAndAuthorizationTypeIsGreaterThanEqual() {
+        assertIndexScan(
+                new Document("resource", "/r2/0")
+                        .append("authorizationType", new Document("$gte", Authorization.Type.Write.getValue()))
+        );
+    }
+
+    @Test
+    public void findByOwnerAndOwnerTypeIs() {
+        assertIndexScan(
+                new Document("owner", "group-1")
+                        .append("ownerType", Group.name())
+        );
+    }
+
+    @Test
+    public void findByOwnerAndOwnerTypeIsAndResourceStartingWith() {
+        assertIndexScan(
+                new Document("owner", "user2@slac.stanford.edu")
+                        .append("ownerType", User.name())
+                        .append("resource", startingWith("/r"))
+        );
+    }
+
+    @Test
+    public void deleteByOwnerIsAndResourceIsAndAuthorizationTypeIs() {
+        assertIndexScan(
+                new Document("owner", "user2@slac.stanford.edu")
+                        .append("resource", "*")
+                        .append("authorizationType", Authorization.Type.Admin.getValue())
+        );
+    }
+
+    @Test
+    public void deleteAllByResourceIs() {
+        assertIndexScan(new Document("resource", "*"));
+    }
+
+    @Test
+    public void deleteAllByResourceStartingWith() {
+        assertIndexScan(new Document("resource", startingWith("/r1")));
+    }
+
+    @Test
+    public void deleteAllByOwnerIs() {
+        assertIndexScan(new Document("owner", "user2@slac.stanford.edu"));
+    }
+
+    @Test
+    public void deleteAllByResourceStartingWithAndOwnerIsAndOwnerTypeIs() {
+        assertIndexScan(
+                new Document("resource", startingWith("/r"))
+                        .append("owner", "user2@slac.stanford.edu")
+                        .append("ownerType", User.name())
+        );
+    }
+
+    @Test
+    public void deleteAllByResourceStartingWithAndOwnerTypeIs() {
+        assertIndexScan(
+                new Document("resource", startingWith("/r"))
+                        .append("ownerType", Group.name())
+        );
+    }
+
+    private static Authorization authorization(String owner, AuthorizationOwnerType ownerType, String resource, int typeIndex) {
+        return Authorization.builder()
+                .authorizationType(Authorization.Type.values()[typeIndex % Authorization.Type.values().length].getValue())
+                .owner(owner)
+                .ownerType(ownerType)
+                .resource(resource)
+                .build();
+    }
+
+    /**
+     * Return the regex generated for the StartingWith keyword of the derived queries
+     */
+    private static Pattern startingWith(String prefix) {
+        return Pattern.compile("^" + Pattern.quote(prefix));
+    }
+
+    /**
+     * Check that the winning plan use an index and never scan the whole collection
+     */
+    private void assertIndexScan(Document filter) {
+        assertThat(getIndexNames(filter)).isNotEmpty();
+    }
+
+    /**
+     * Return the indexes scanned by the winning plan of a repository query, mapped as the template does
+     */
+    private List<String> getIndexNames(Query query) {
+        return getWinningPlanIndexNames(explain(query, ExplainVerbosity.QUERY_PLANNER));
+    }
+
+    /**
+     * Return the indexes scanned by the winning plan of a filter
+     */
+    private List<String> getIndexNames(Document filter) {
+        return getWinningPlanIndexNames(
+                mongoTemplate.getCollection(mongoTemplate.getCollectionName(Authorization.class))
+                        .find(filter)
+                        .explain()
+        );
+    }
+
+    private static List<String> getWinningPlanIndexNames(Document explain) {
+        Document winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+        assertThat(winningPlan.toJson()).doesNotContain("COLLSCAN");
+        List<String> indexNames = new ArrayList<>();
+        collectIndexNames(winningPlan, indexNames);
+        return indexNames;
+    }
+
+    /**
+     * Collect the index of all the IXSCAN stages of a plan, the $or have one input stage for each branch
+     */
+    private static void collectIndexNames(Object stage, List<String> indexNames) {
+        if (stage instanceof Document document) {
+            if ("IXSCAN".equals(document.get("stage"))) {
+                indexNames.add(document.getString("indexName"));
+            }
+            document.values().forEach(value -> collectIndexNames(value, indexNames));
+        } else if (stage instanceof List<?> list) {
+            list.forEach(value -> collectIndexNames(value, indexNames));
+        }
+    }
+
+    /**
+     * Check that the query, with its projection, is answered without reading any document
+     */
+    private void assertCoveredQuery(Query query) {
+        Document explain = explain(query, ExplainVerbosity.EXECUTION_STATS);
+        assertThat(explain.get("executionStats", Document.class).get("totalDocsExamined", Number.class).longValue()).isZero();
+    }
+
+    /**
+     * Explain a query with the filter and the projection mapped on the authorization documents
+     */
+    private Document explain(Query query, ExplainVerbosity verbosity) {
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(Authorization.class);
+        QueryMapper queryMapper = new QueryMapper(mongoTemplate.getConverter());
+        FindIterable<Document> find = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Authorization.class))
+                .find(queryMapper.getMappedObject(query.getQueryObject(), entity))
+                .projection(queryMapper.getMappedFields(query.getFieldsObject(), entity));
+        if (query.getLimit() > 0) {
+            find.limit(query.getLimit());
+        }
+        return find.explain(verbosity);
+    }
+}
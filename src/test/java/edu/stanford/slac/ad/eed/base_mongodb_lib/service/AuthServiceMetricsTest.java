@@ -0,0 +1,156 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.service;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.repository.AuthorizationRepository;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationDTO;
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.ad.eed.baselib.service.AuthService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Optional;
+
+import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO.Read;
+import static edu.stanford.slac.ad.eed.baselib.model.AuthorizationOwnerType.User;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+@AutoConfigureMockMvc
+@SpringBootTest(
+        properties = {
+                "edu.stanford.slac.ad.eed.mongodb.authorization-cache.enabled=true"
+        }
+)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class AuthServiceMetricsTest {
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private AuthorizationRepository authorizationRepository;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @TestConfiguration
+    static class MeterRegistryConfiguration {
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @BeforeEach
+    public void preTest() {
+        mongoTemplate.remove(new Query(), Authorization.class);
+        assertDoesNotThrow(
+                () -> authorizationRepository.save(
+                        Authorization.builder()
+                                .authorizationType(Authorization.Type.Read.getValue())
+                                .owner("user1@slac.stanford.edu")
+                                .ownerType(User)
+                                .resource("/metrics/r1")
+                                .build()
+                )
+        );
+    }
+
+    @Test
+    public void methodAndStagesAreTimedByOutcome() {
+        List<AuthorizationDTO> allAuth = assertDoesNotThrow(
+                () -> authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(
+                        "user1@slac.stanford.edu",
+                        Read,
+                        "/metrics",
+                        Optional.empty(),
+                        Optional.of(true)
+                )
+        );
+        assertThat(allAuth).hasSize(1);
+
+        assertThat(
+                meterRegistry.find(AuthServiceMetrics.METHOD_TIMER)
+                        .tag("method", "getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix")
+                        .tag("outcome", "success")
+                        .timers()
+        ).isNotEmpty();
+        for (String stage : List.of("token-id-resolution", "ldap-group-lookup", "local-group-lookup", "authorization-lookup", "reduction")) {
+            assertThat(
+                    meterRegistry.find(AuthServiceMetrics.STAGE_TIMER)
+                            .tag("stage", stage)
+                            .tag("outcome", "success")
+                            .timers()
+            ).as("stage %s", stage).isNotEmpty();
+        }
+        // the owner lookup wrapped the other stages and is not timed anymore
+        assertThat(
+                meterRegistry.find(AuthServiceMetrics.STAGE_TIMER)
+                        .tag("stage", "owner-lookup")
+                        .timers()
+        ).isEmpty();
+    }
+
+    @Test
+    public void timersAreRegisteredOnce() {
+        for (int idx = 0; idx < 3; idx++) {
+            // a different prefix for each call miss the authorization cache
+            String resourcePrefix = "/metrics/%d".formatted(idx);
+            assertDoesNotThrow(
+                    () -> authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(
+                            "user3@slac.stanford.edu",
+                            Read,
+                            resourcePrefix,
+                            Optional.empty(),
+                            Optional.of(true)
+                    )
+            );
+        }
+        // the same timer accumulate the samples of the calls
+        assertThat(
+                meterRegistry.find(AuthServiceMetrics.STAGE_TIMER)
+                        .tag("stage", "ldap-group-lookup")
+                        .tag("outcome", "success")
+                        .timers()
+        ).hasSize(1)
+                .allSatisfy(timer -> assertThat(timer.count()).isGreaterThanOrEqualTo(3));
+    }
+
+    @Test
+    public void authorizationCacheHitsAreCounted() {
+        for (int idx = 0; idx < 2; idx++) {
+            assertDoesNotThrow(
+                    () -> authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(
+                            "user2@slac.stanford.edu",
+                            Read,
+                            "/metrics",
+                            Optional.empty(),
+                            Optional.of(true)
+                    )
+            );
+        }
+        assertThat(
+                meterRegistry.find("cache.gets")
+                        .tag("cache", "authorization")
+                        .tag("result", "hit")
+                        .functionCounter()
+                        .count()
+        ).isGreaterThanOrEqualTo(1.0);
+    }
+}
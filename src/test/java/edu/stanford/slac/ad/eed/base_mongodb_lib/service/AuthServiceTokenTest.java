@@ -34,6 +34,7 @@ import org.springframework.test.context.ActiveProfiles;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static edu.stanford.slac.ad.eed.baselib.model.Authorization.Type.Read;
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
@@ -58,6 +59,8 @@ public class AuthServiceTokenTest {
     @Autowired
     private AuthService authService;
     @Autowired
+    private AuthServiceImpl authServiceImpl;
+    @Autowired
     private MongoTemplate mongoTemplate;
 
     @BeforeEach
@@ -216,6 +219,33 @@ public class AuthServiceTokenTest {
                 );
     }
 
+    @Test
+    public void streamAllTokensReadAllTheTokens() {
+        for (int i = 0; i < 12; i++) {
+            int finalI = i;
+            assertDoesNotThrow(
+                    () -> authService.addNewAuthenticationToken(
+                            NewAuthenticationTokenDTO
+                                    .builder()
+                                    .name("token-%02d".formatted(finalI))
+                                    .expiration(LocalDate.of(3000,1,1))
+                                    .build(),
+                            false
+                    )
+            );
+        }
+        List<AuthenticationTokenDTO> streamedTokens;
+        try (Stream<AuthenticationTokenDTO> tokenStream = assertDoesNotThrow(() -> authServiceImpl.streamAllAuthenticationToken())) {
+            streamedTokens = tokenStream.toList();
+        }
+        assertThat(streamedTokens)
+                .hasSize(12)
+                .extracting(AuthenticationTokenDTO::id)
+                .containsExactlyInAnyOrderElementsOf(
+                        authService.getAllAuthenticationToken().stream().map(AuthenticationTokenDTO::id).toList()
+                );
+    }
+
     /**
      * The deletion of the token delete also the authorization
      */
@@ -0,0 +1,125 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.service;
+
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationDTO;
+import edu.stanford.slac.ad.eed.baselib.config.AppProperties;
+import edu.stanford.slac.ad.eed.baselib.model.AuthenticationToken;
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.ad.eed.baselib.model.AuthorizationOwnerType;
+import edu.stanford.slac.ad.eed.baselib.model.LocalGroup;
+import edu.stanford.slac.ad.eed.baselib.service.AuthService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO.Read;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+/**
+ * The writes of the other nodes, done here directly on the collections, reach the cache by the change stream
+ */
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {"edu.stanford.slac.ad.eed.mongodb.authorization-cache.enabled=true"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class AuthorizationCacheChangeStreamTest {
+    @Autowired
+    private AppProperties appProperties;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    public void preTest() {
+        appProperties.getRootUserList().clear();
+        mongoTemplate.remove(new Query(), Authorization.class);
+        mongoTemplate.remove(new Query(), LocalGroup.class);
+        mongoTemplate.remove(new Query(), AuthenticationToken.class);
+    }
+
+    @Test
+    public void authorizationWrittenByAnotherNodeInvalidateTheCache() {
+        assertThat(readAuthorization("user1@slac.stanford.edu")).isEmpty();
+
+        mongoTemplate.insert(
+                Authorization.builder()
+                        .authorizationType(Authorization.Type.Read.getValue())
+                        .owner("user1@slac.stanford.edu")
+                        .ownerType(AuthorizationOwnerType.User)
+                        .resource("/r1")
+                        .build()
+        );
+        awaitUntil(() -> readAuthorization("user1@slac.stanford.edu").size() == 1);
+
+        mongoTemplate.remove(new Query(Criteria.where("owner").is("user1@slac.stanford.edu")), Authorization.class);
+        awaitUntil(() -> readAuthorization("user1@slac.stanford.edu").isEmpty());
+    }
+
+    @Test
+    public void groupMemberAddedByAnotherNodeInvalidateTheCache() {
+        LocalGroup localGroup = mongoTemplate.insert(
+                LocalGroup.builder()
+                        .name("change-stream-group")
+                        .description("change-stream-group")
+                        .members(List.of())
+                        .build()
+        );
+        mongoTemplate.insert(
+                Authorization.builder()
+                        .authorizationType(Authorization.Type.Write.getValue())
+                        .owner(localGroup.getId())
+                        .ownerType(AuthorizationOwnerType.Group)
+                        .resource("/r1")
+                        .build()
+        );
+        awaitUntil(() -> readAuthorization("user1@slac.stanford.edu").isEmpty());
+
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("id").is(localGroup.getId())),
+                new Update().push("members", "user1@slac.stanford.edu"),
+                LocalGroup.class
+        );
+        awaitUntil(() -> readAuthorization("user1@slac.stanford.edu").size() == 1);
+    }
+
+    private List<AuthorizationDTO> readAuthorization(String owner) {
+        return assertDoesNotThrow(
+                () -> authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(
+                        owner,
+                        Read,
+                        "/r",
+                        Optional.empty(),
+                        Optional.of(true)
+                )
+        );
+    }
+
+    /**
+     * Wait for the change stream to deliver the invalidation
+     */
+    private void awaitUntil(BooleanSupplier condition) {
+        long timeout = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(timeout);
+            assertDoesNotThrow(() -> Thread.sleep(50));
+        }
+    }
+}
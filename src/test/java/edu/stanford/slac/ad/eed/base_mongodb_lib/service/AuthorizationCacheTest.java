@@ -0,0 +1,287 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.service;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.repository.AuthenticationTokenRepository;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.repository.AuthorizationRepository;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthenticationTokenDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationOwnerTypeDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.NewAuthenticationTokenDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.NewAuthorizationDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v2.dto.NewLocalGroupDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v2.dto.UpdateLocalGroupDTO;
+import edu.stanford.slac.ad.eed.baselib.config.AppProperties;
+import edu.stanford.slac.ad.eed.baselib.model.AuthenticationToken;
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.ad.eed.baselib.model.LocalGroup;
+import edu.stanford.slac.ad.eed.baselib.service.AuthService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO.*;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {"edu.stanford.slac.ad.eed.mongodb.authorization-cache.enabled=true"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class AuthorizationCacheTest {
+    @Autowired
+    private AppProperties appProperties;
+    @SpyBean
+    @Autowired
+    private AuthorizationRepository authorizationRepository;
+    @SpyBean
+    @Autowired
+    private AuthenticationTokenRepository authenticationTokenRepository;
+    // no change stream, the writes of this node need to invalidate the cache by themselves
+    @MockBean(name = "authorizationCacheListenerContainer")
+    private MessageListenerContainer authorizationCacheListenerContainer;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    public void preTest() {
+        appProperties.getRootUserList().clear();
+        mongoTemplate.remove(new Query(), Authorization.class);
+        mongoTemplate.remove(new Query(), LocalGroup.class);
+        mongoTemplate.remove(new Query(), AuthenticationToken.class);
+        Mockito.reset(authorizationRepository, authenticationTokenRepository);
+    }
+
+    @Test
+    public void cachedAuthorizationAreReturnedFromMemory() {
+        addAuthorization("user1@slac.stanford.edu", AuthorizationOwnerTypeDTO.User, "/r1", Read);
+        Mockito.clearInvocations(authorizationRepository);
+
+        var firstRead = readAuthorization("user1@slac.stanford.edu");
+        var secondRead = readAuthorization("user1@slac.stanford.edu");
+        assertThat(firstRead).hasSize(1);
+        assertThat(secondRead).containsExactlyElementsOf(firstRead);
+        verify(authorizationRepository, times(1)).findAllByOwnerAndGroupsAndAuthorizationTypeAndResourcePrefix(anyString(), any(), anyList(), anyInt(), anyString());
+    }
+
+    @Test
+    public void newUserAuthorizationInvalidateTheCache() {
+        addAuthorization("user1@slac.stanford.edu", AuthorizationOwnerTypeDTO.User, "/r1", Read);
+        assertThat(readAuthorization("user1@slac.stanford.edu")).hasSize(1);
+        assertThat(readCachedAuthorization("user1@slac.stanford.edu")).hasSize(1);
+
+        addAuthorization("user1@slac.stanford.edu", AuthorizationOwnerTypeDTO.User, "/r2", Write);
+        assertThat(readAuthorization("user1@slac.stanford.edu"))
+                .extracting(AuthorizationDTO::resource)
+                .containsExactlyInAnyOrder("/r1", "/r2");
+    }
+
+    @Test
+    public void newGroupAuthorizationInvalidateTheCache() {
+        var groupId = createLocalGroup("cache-group-1", "user1@slac.stanford.edu");
+        addAuthorization("user1@slac.stanford.edu", AuthorizationOwnerTypeDTO.User, "/r1", Read);
+        assertThat(readAuthorization("user1@slac.stanford.edu")).hasSize(1);
+        assertThat(readCachedAuthorization("user1@slac.stanford.edu")).hasSize(1);
+
+        addAuthorization(groupId, AuthorizationOwnerTypeDTO.Group, "/r2", Admin);
+        assertThat(readAuthorization("user1@slac.stanford.edu"))
+                .extracting(AuthorizationDTO::owner)
+                .containsExactlyInAnyOrder("user1@slac.stanford.edu", groupId);
+    }
+
+    @Test
+    public void deletedAuthorizationInvalidateTheCache() {
+        var authId = addAuthorization("user1@slac.stanford.edu", AuthorizationOwnerTypeDTO.User, "/r1", Read);
+        addAuthorization("user1@slac.stanford.edu", AuthorizationOwnerTypeDTO.User, "/r2", Read);
+        assertThat(readAuthorization("user1@slac.stanford.edu")).hasSize(2);
+        assertThat(readCachedAuthorization("user1@slac.stanford.edu")).hasSize(2);
+
+        assertDoesNotThrow(() -> authService.deleteAuthorizationById(authId));
+        assertThat(readAuthorization("user1@slac.stanford.edu"))
+                .extracting(AuthorizationDTO::resource)
+                .containsExactly("/r2");
+    }
+
+    @Test
+    public void downgradedAuthorizationInvalidateTheCache() {
+        var authId = addAuthorization("user1@slac.stanford.edu", AuthorizationOwnerTypeDTO.User, "/r1", Admin);
+        assertThat(readAuthorization("user1@slac.stanford.edu"))
+                .extracting(AuthorizationDTO::authorizationType)
+                .containsExactly(Admin);
+        assertThat(readCachedAuthorization("user1@slac.stanford.edu"))
+                .extracting(AuthorizationDTO::authorizationType)
+                .containsExactly(Admin);
+
+        assertDoesNotThrow(() -> authService.updateAuthorizationType(authId, Read));
+        assertThat(readAuthorization("user1@slac.stanford.edu"))
+                .extracting(AuthorizationDTO::authorizationType)
+                .containsExactly(Read);
+    }
+
+    @Test
+    public void deletedResourceInvalidateTheCache() {
+        addAuthorization("user1@slac.stanford.edu", AuthorizationOwnerTypeDTO.User, "/r1", Read);
+        addAuthorization("user2@slac.stanford.edu", AuthorizationOwnerTypeDTO.User, "/r1", Read);
+        assertThat(readAuthorization("user1@slac.stanford.edu")).hasSize(1);
+        assertThat(readAuthorization("user2@slac.stanford.edu")).hasSize(1);
+        assertThat(readCachedAuthorization("user1@slac.stanford.edu")).hasSize(1);
+        assertThat(readCachedAuthorization("user2@slac.stanford.edu")).hasSize(1);
+
+        assertDoesNotThrow(() -> authService.deleteAuthorizationForResource("/r1"));
+        assertThat(readAuthorization("user1@slac.stanford.edu")).isEmpty();
+        assertThat(readAuthorization("user2@slac.stanford.edu")).isEmpty();
+    }
+
+    @Test
+    public void removedGroupMemberInvalidateTheCache() {
+        var groupId = createLocalGroup("cache-group-2", "user1@slac.stanford.edu");
+        addAuthorization(groupId, AuthorizationOwnerTypeDTO.Group, "/r1", Write);
+        assertThat(readAuthorization("user1@slac.stanford.edu")).hasSize(1);
+        assertThat(readCachedAuthorization("user1@slac.stanford.edu")).hasSize(1);
+
+        assertDoesNotThrow(
+                () -> authService.updateLocalGroup(
+                        groupId,
+                        UpdateLocalGroupDTO
+                                .builder()
+                                .name("cache-group-2")
+                                .description("cache-group-2")
+                                .members(List.of("user2@slac.stanford.edu"))
+                                .build()
+                )
+        );
+        assertThat(readAuthorization("user1@slac.stanford.edu")).isEmpty();
+        assertThat(readAuthorization("user2@slac.stanford.edu")).hasSize(1);
+    }
+
+    @Test
+    public void deletedGroupInvalidateTheCache() {
+        var groupId = createLocalGroup("cache-group-3", "user1@slac.stanford.edu");
+        addAuthorization(groupId, AuthorizationOwnerTypeDTO.Group, "/r1", Write);
+        assertThat(readAuthorization("user1@slac.stanford.edu")).hasSize(1);
+        assertThat(readCachedAuthorization("user1@slac.stanford.edu")).hasSize(1);
+
+        assertDoesNotThrow(() -> authService.deleteLocalGroup(groupId));
+        assertThat(readAuthorization("user1@slac.stanford.edu")).isEmpty();
+    }
+
+    @Test
+    public void userEmailIsNotResolvedAgainAsToken() {
+        assertDoesNotThrow(() -> authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix("user5@slac.stanford.edu", Read, "/r1"));
+        assertDoesNotThrow(() -> authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix("user5@slac.stanford.edu", Write, "/r2"));
+        verify(authenticationTokenRepository, times(1)).findByEmailIs("user5@slac.stanford.edu");
+    }
+
+    @Test
+    public void newTokenInvalidateTheEmailResolution() {
+        var tokenEmail = "cache-token@%s".formatted(appProperties.getAppEmailPostfix());
+        assertThat(readAuthorization(tokenEmail)).isEmpty();
+        assertThat(readCachedAuthorization(tokenEmail)).isEmpty();
+
+        var newToken = createToken("cache-token");
+        assertThat(newToken.email()).isEqualTo(tokenEmail);
+        addAuthorization(newToken.id(), AuthorizationOwnerTypeDTO.Token, "/r1", Read);
+        assertThat(readAuthorization(tokenEmail))
+                .extracting(AuthorizationDTO::owner)
+                .containsExactly(newToken.id());
+    }
+
+    @Test
+    public void deletedTokenInvalidateTheCache() {
+        var newToken = createToken("cache-token-deleted");
+        addAuthorization(newToken.id(), AuthorizationOwnerTypeDTO.Token, "/r1", Read);
+        assertThat(readAuthorization(newToken.email())).hasSize(1);
+        assertThat(readCachedAuthorization(newToken.email())).hasSize(1);
+
+        assertDoesNotThrow(() -> authService.deleteToken(newToken.id()));
+        assertThat(readAuthorization(newToken.email())).isEmpty();
+    }
+
+    private String addAuthorization(String owner, AuthorizationOwnerTypeDTO ownerType, String resource, AuthorizationTypeDTO authorizationType) {
+        return assertDoesNotThrow(
+                () -> authService.addNewAuthorization(
+                        NewAuthorizationDTO
+                                .builder()
+                                .owner(owner)
+                                .ownerType(ownerType)
+                                .resource(resource)
+                                .authorizationType(authorizationType)
+                                .build()
+                )
+        );
+    }
+
+    private String createLocalGroup(String name, String member) {
+        return assertDoesNotThrow(
+                () -> authService.createLocalGroup(
+                        NewLocalGroupDTO
+                                .builder()
+                                .name(name)
+                                .description(name)
+                                .members(List.of(member))
+                                .build()
+                )
+        );
+    }
+
+    private AuthenticationTokenDTO createToken(String name) {
+        return assertDoesNotThrow(
+                () -> authService.addNewAuthenticationToken(
+                        NewAuthenticationTokenDTO
+                                .builder()
+                                .name(name)
+                                .expiration(LocalDate.now().plusDays(1))
+                                .build()
+                )
+        );
+    }
+
+    private List<AuthorizationDTO> readAuthorization(String owner) {
+        return assertDoesNotThrow(
+                () -> authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(
+                        owner,
+                        Read,
+                        "/r",
+                        Optional.empty(),
+                        Optional.of(true)
+                )
+        );
+    }
+
+    /**
+     * Read the authorizations of an owner checking that they are returned by the cache
+     */
+    private List<AuthorizationDTO> readCachedAuthorization(String owner) {
+        Mockito.clearInvocations(authorizationRepository);
+        var authorizations = readAuthorization(owner);
+        verify(authorizationRepository, never()).findAllByOwnerAndGroupsAndAuthorizationTypeAndResourcePrefix(anyString(), any(), anyList(), anyInt(), anyString());
+        return authorizations;
+    }
+}
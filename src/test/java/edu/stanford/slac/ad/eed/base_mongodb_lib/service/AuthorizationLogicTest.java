@@ -299,6 +299,110 @@ public class AuthorizationLogicTest {
                 .hasSize(2);
     }
 
+    @Test
+    public void inheritedGroupAuthorizationsAreFilteredByTypeAndPrefix() {
+        // write -> r1
+        assertDoesNotThrow(
+                () -> authorizationRepository.save(
+                        Authorization.builder()
+                                .authorizationType(Authorization.Type.Write.getValue())
+                                .owner(group1Id)
+                                .ownerType(Group)
+                                .resource("/r1")
+                                .build()
+                )
+        );
+        // read -> r2
+        assertDoesNotThrow(
+                () -> authorizationRepository.save(
+                        Authorization.builder()
+                                .authorizationType(Authorization.Type.Read.getValue())
+                                .owner(group1Id)
+                                .ownerType(Group)
+                                .resource("/r2")
+                                .build()
+                )
+        );
+        // admin -> other resource
+        assertDoesNotThrow(
+                () -> authorizationRepository.save(
+                        Authorization.builder()
+                                .authorizationType(Authorization.Type.Admin.getValue())
+                                .owner(group2Id)
+                                .ownerType(Group)
+                                .resource("/other")
+                                .build()
+                )
+        );
+
+        List<AuthorizationDTO> allWriteAuthorization = authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(
+                "user1@slac.stanford.edu",
+                Write,
+                "/r",
+                Optional.empty(),
+                Optional.of(true)
+        );
+        assertThat(allWriteAuthorization)
+                .hasSize(1)
+                .extracting(AuthorizationDTO::resource)
+                .containsExactly("/r1");
+    }
+
+    @Test
+    public void existsAuthorizationCheckOnlyTheOwner() {
+        // write -> r1 by group
+        assertDoesNotThrow(
+                () -> authorizationRepository.save(
+                        Authorization.builder()
+                                .authorizationType(Authorization.Type.Write.getValue())
+                                .owner(group1Id)
+                                .ownerType(Group)
+                                .resource("/r1")
+                                .build()
+                )
+        );
+        // read -> r2 by user1
+        assertDoesNotThrow(
+                () -> authorizationRepository.save(
+                        Authorization.builder()
+                                .authorizationType(Authorization.Type.Read.getValue())
+                                .owner("user1@slac.stanford.edu")
+                                .ownerType(User)
+                                .resource("/r2")
+                                .build()
+                )
+        );
+        // root for user3
+        assertDoesNotThrow(
+                () -> authorizationRepository.save(
+                        Authorization.builder()
+                                .authorizationType(Authorization.Type.Admin.getValue())
+                                .owner("user3@slac.stanford.edu")
+                                .ownerType(User)
+                                .resource("*")
+                                .build()
+                )
+        );
+
+        assertThat(
+                authorizationRepository.existsByOwnerAndAuthorizationTypeAndResourcePrefix(
+                        "user1@slac.stanford.edu", User, Authorization.Type.Read.getValue(), "/r"
+                )
+        ).isTrue();
+        // the group authorizations are not inherited
+        assertThat(
+                authorizationRepository.existsByOwnerAndAuthorizationTypeAndResourcePrefix(
+                        "user1@slac.stanford.edu", User, Authorization.Type.Write.getValue(), "/r"
+                )
+        ).isFalse();
+        // the root authorization doesn't match a prefix
+        assertThat(
+                authorizationRepository.existsByOwnerAndAuthorizationTypeAndResourcePrefix(
+                        "user3@slac.stanford.edu", User, Authorization.Type.Admin.getValue(), "/r"
+                )
+        ).isFalse();
+    }
+
     @Test
     public void findAuthorizationByLevel() {
         appProperties.getRootUserList().clear();
@@ -0,0 +1,177 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.service;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.repository.AuthorizationRepository;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthenticationTokenDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.NewAuthenticationTokenDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v2.dto.NewLocalGroupDTO;
+import edu.stanford.slac.ad.eed.baselib.config.AppProperties;
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.ad.eed.baselib.model.AuthenticationToken;
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.ad.eed.baselib.model.LocalGroup;
+import edu.stanford.slac.ad.eed.baselib.service.AuthService;
+import edu.stanford.slac.ad.eed.baselib.service.PeopleGroupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO.Read;
+import static edu.stanford.slac.ad.eed.baselib.model.AuthorizationOwnerType.Group;
+import static edu.stanford.slac.ad.eed.baselib.model.AuthorizationOwnerType.User;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@AutoConfigureMockMvc
+@SpringBootTest(
+        properties = {
+                "edu.stanford.slac.ad.eed.mongodb.authorization-lookup.parallel=true",
+                "edu.stanford.slac.ad.eed.mongodb.authorization-lookup.timeout=1s"
+        }
+)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class AuthorizationLookupParallelTest {
+    @SpyBean
+    @Autowired
+    private PeopleGroupService peopleGroupService;
+    @Autowired
+    private AppProperties appProperties;
+    @Autowired
+    private AuthorizationRepository authorizationRepository;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    private String groupId = null;
+
+    @BeforeEach
+    public void preTest() {
+        Mockito.reset(peopleGroupService);
+        mongoTemplate.remove(new Query(), Authorization.class);
+        mongoTemplate.remove(new Query(), LocalGroup.class);
+        mongoTemplate.remove(new Query(), AuthenticationToken.class);
+        groupId = authService.createLocalGroup(
+                NewLocalGroupDTO
+                        .builder()
+                        .name("parallel-group-1")
+                        .description("parallel-group-1")
+                        .members(List.of("user1@slac.stanford.edu"))
+                        .build()
+        );
+        assertDoesNotThrow(
+                () -> authorizationRepository.save(
+                        Authorization.builder()
+                                .authorizationType(Authorization.Type.Read.getValue())
+                                .owner("user1@slac.stanford.edu")
+                                .ownerType(User)
+                                .resource("/r1")
+                                .build()
+                )
+        );
+        assertDoesNotThrow(
+                () -> authorizationRepository.save(
+                        Authorization.builder()
+                                .authorizationType(Authorization.Type.Write.getValue())
+                                .owner(groupId)
+                                .ownerType(Group)
+                                .resource("/r2")
+                                .build()
+                )
+        );
+    }
+
+    @Test
+    public void parallelResolutionIncludeUserAndGroupAuthorizations() {
+        List<AuthorizationDTO> allAuth = assertDoesNotThrow(
+                () -> authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(
+                        "user1@slac.stanford.edu",
+                        Read,
+                        "/r",
+                        Optional.empty(),
+                        Optional.of(true)
+                )
+        );
+        assertThat(allAuth)
+                .extracting(AuthorizationDTO::resource)
+                .containsExactlyInAnyOrder("/r1", "/r2");
+    }
+
+    @Test
+    public void tokenGroupsAreLookedUpOnlyWithTheTokenId() {
+        AuthenticationTokenDTO newToken = assertDoesNotThrow(
+                () -> authService.addNewAuthenticationToken(
+                        NewAuthenticationTokenDTO
+                                .builder()
+                                .name("parallel-token")
+                                .expiration(LocalDate.now().plusDays(1))
+                                .build()
+                )
+        );
+        assertThat(newToken.email()).isEqualTo("parallel-token@%s".formatted(appProperties.getAppEmailPostfix()));
+
+        assertDoesNotThrow(
+                () -> authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(
+                        newToken.email(),
+                        Read,
+                        "/r",
+                        Optional.empty(),
+                        Optional.of(true)
+                )
+        );
+        verify(peopleGroupService).findGroupByUserId(newToken.id());
+        verify(peopleGroupService, never()).findGroupByUserId(newToken.email());
+    }
+
+    @Test
+    public void slowLookupFailWithTimeout() {
+        CountDownLatch lookupInterrupted = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            try {
+                Thread.sleep(3000);
+            } catch (InterruptedException e) {
+                lookupInterrupted.countDown();
+                throw e;
+            }
+            return invocation.callRealMethod();
+        }).when(peopleGroupService).findGroupByUserId(anyString());
+
+        ControllerLogicException exception = assertThrows(
+                ControllerLogicException.class,
+                () -> authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(
+                        "user1@slac.stanford.edu",
+                        Read,
+                        "/r",
+                        Optional.empty(),
+                        Optional.of(true)
+                )
+        );
+        assertThat(exception.getErrorCode()).isEqualTo(-2);
+        // the timed out lookup is interrupted and doesn't keep its thread
+        assertThat(assertDoesNotThrow(() -> lookupInterrupted.await(1, TimeUnit.SECONDS))).isTrue();
+    }
+}
@@ -0,0 +1,156 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.service;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.repository.AuthorizationRepository;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v2.dto.NewLocalGroupDTO;
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.ad.eed.baselib.model.LocalGroup;
+import edu.stanford.slac.ad.eed.baselib.service.AuthService;
+import edu.stanford.slac.ad.eed.baselib.service.PeopleGroupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO.Read;
+import static edu.stanford.slac.ad.eed.baselib.model.AuthorizationOwnerType.Group;
+import static edu.stanford.slac.ad.eed.baselib.model.AuthorizationOwnerType.User;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+
+@AutoConfigureMockMvc
+@SpringBootTest(
+        properties = {
+                "edu.stanford.slac.ad.eed.mongodb.authorization-lookup.parallel=true",
+                "edu.stanford.slac.ad.eed.mongodb.authorization-lookup.virtual-threads=true",
+                "edu.stanford.slac.ad.eed.mongodb.authorization-lookup.max-concurrent-lookups=2",
+                "edu.stanford.slac.ad.eed.mongodb.authorization-lookup.timeout=10s"
+        }
+)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class AuthorizationLookupVirtualThreadTest {
+    @SpyBean
+    @Autowired
+    private PeopleGroupService peopleGroupService;
+    @Autowired
+    private AuthorizationRepository authorizationRepository;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    public void preTest() {
+        Mockito.reset(peopleGroupService);
+        mongoTemplate.remove(new Query(), Authorization.class);
+        mongoTemplate.remove(new Query(), LocalGroup.class);
+        String groupId = authService.createLocalGroup(
+                NewLocalGroupDTO
+                        .builder()
+                        .name("virtual-group-1")
+                        .description("virtual-group-1")
+                        .members(List.of("user1@slac.stanford.edu"))
+                        .build()
+        );
+        assertDoesNotThrow(
+                () -> authorizationRepository.save(
+                        Authorization.builder()
+                                .authorizationType(Authorization.Type.Read.getValue())
+                                .owner("user1@slac.stanford.edu")
+                                .ownerType(User)
+                                .resource("/r1")
+                                .build()
+                )
+        );
+        assertDoesNotThrow(
+                () -> authorizationRepository.save(
+                        Authorization.builder()
+                                .authorizationType(Authorization.Type.Write.getValue())
+                                .owner(groupId)
+                                .ownerType(Group)
+                                .resource("/r2")
+                                .build()
+                )
+        );
+    }
+
+    @Test
+    public void lookupsRunOnVirtualThreads() {
+        AtomicBoolean onVirtualThread = new AtomicBoolean(false);
+        doAnswer(invocation -> {
+            onVirtualThread.set(Thread.currentThread().isVirtual());
+            return invocation.callRealMethod();
+        }).when(peopleGroupService).findGroupByUserId(anyString());
+
+        List<AuthorizationDTO> allAuth = assertDoesNotThrow(
+                () -> authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(
+                        "user1@slac.stanford.edu",
+                        Read,
+                        "/r",
+                        Optional.empty(),
+                        Optional.of(true)
+                )
+        );
+        assertThat(allAuth)
+                .extracting(AuthorizationDTO::resource)
+                .containsExactlyInAnyOrder("/r1", "/r2");
+        assertThat(onVirtualThread.get()).isTrue();
+    }
+
+    @Test
+    public void concurrentLookupsAreLimited() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger(0);
+        AtomicInteger maxRunning = new AtomicInteger(0);
+        doAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+                return invocation.callRealMethod();
+            } finally {
+                running.decrementAndGet();
+            }
+        }).when(peopleGroupService).findGroupByUserId(anyString());
+
+        List<Thread> checks = new ArrayList<>();
+        for (int idx = 0; idx < 10; idx++) {
+            checks.add(
+                    Thread.ofVirtual().start(
+                            () -> assertDoesNotThrow(
+                                    () -> authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(
+                                            "user1@slac.stanford.edu",
+                                            Read,
+                                            "/r",
+                                            Optional.empty(),
+                                            Optional.of(true)
+                                    )
+                            )
+                    )
+            );
+        }
+        for (Thread check : checks) {
+            check.join();
+        }
+        assertThat(maxRunning.get()).isBetween(1, 2);
+    }
+}
@@ -0,0 +1,205 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.service;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.config.CausalSessionScope;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.repository.AuthorizationRepository;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationOwnerTypeDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.NewAuthorizationDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v2.dto.NewLocalGroupDTO;
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.ad.eed.baselib.model.LocalGroup;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO.Read;
+import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO.Write;
+import static edu.stanford.slac.ad.eed.baselib.model.AuthorizationOwnerType.User;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+@AutoConfigureMockMvc
+@SpringBootTest(
+        properties = {
+                "edu.stanford.slac.ad.eed.mongodb.causal-session.enabled=true",
+                "edu.stanford.slac.ad.eed.mongodb.read-routing.enabled=true"
+        }
+)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class CausalSessionTest {
+    @Autowired
+    private CausalSessionScope causalSessionScope;
+    @Autowired
+    private AuthServiceImpl authService;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private AuthorizationRepository authorizationRepository;
+
+    @BeforeEach
+    public void preTest() {
+        mongoTemplate.remove(new Query(), Authorization.class);
+        mongoTemplate.remove(new Query(), LocalGroup.class);
+    }
+
+    @Test
+    public void grantAndRevokeAreSeenByTheChecksOfTheSameScope() {
+        Boolean authorizedAfterGrant = assertDoesNotThrow(
+                () -> causalSessionScope.run(
+                        () -> {
+                            assertThat(causalSessionScope.isActive()).isTrue();
+                            addAuthorization("user1@slac.stanford.edu", "/causal/r1");
+                            return !authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix("user1@slac.stanford.edu", Read, "/causal", Optional.empty(), Optional.empty()).isEmpty();
+                        }
+                )
+        );
+        assertThat(authorizedAfterGrant).isTrue();
+        assertThat(causalSessionScope.isActive()).isFalse();
+
+        Boolean authorizedAfterRevoke = assertDoesNotThrow(
+                () -> causalSessionScope.run(
+                        () -> {
+                            authService.deleteAuthorizationForResource("/causal/r1");
+                            return !authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix("user1@slac.stanford.edu", Read, "/causal", Optional.empty(), Optional.empty()).isEmpty();
+                        }
+                )
+        );
+        assertThat(authorizedAfterRevoke).isFalse();
+    }
+
+    @Test
+    public void nestedScopesShareTheSession() {
+        Boolean authorized = assertDoesNotThrow(
+                () -> causalSessionScope.run(
+                        () -> {
+                            causalSessionScope.run(() -> addAuthorization("user2@slac.stanford.edu", "/causal/r2"));
+                            // the inner scope doesn't close the session of the outer one
+                            assertThat(causalSessionScope.isActive()).isTrue();
+                            return !authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix("user2@slac.stanford.edu", Write, "/causal", Optional.empty(), Optional.empty()).isEmpty();
+                        }
+                )
+        );
+        assertThat(authorized).isTrue();
+    }
+
+    @Test
+    public void rootAndLocalGroupWritesAreSeenByTheChecksOfTheSameScope() {
+        Boolean authorizedAsRoot = assertDoesNotThrow(
+                () -> causalSessionScope.run(
+                        () -> {
+                            authService.addRootAuthorization("user3@slac.stanford.edu", "causal-test");
+                            return !authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix("user3@slac.stanford.edu", Write, "*", Optional.empty(), Optional.empty()).isEmpty();
+                        }
+                )
+        );
+        assertThat(authorizedAsRoot).isTrue();
+
+        Boolean authorizedByGroup = assertDoesNotThrow(
+                () -> causalSessionScope.run(
+                        () -> {
+                            String groupId = authService.createLocalGroup(
+                                    NewLocalGroupDTO
+                                            .builder()
+                                            .name("causal-group")
+                                            .description("causal-group")
+                                            .members(List.of("user4@slac.stanford.edu"))
+                                            .build()
+                            );
+                            authService.addNewAuthorization(
+                                    NewAuthorizationDTO
+                                            .builder()
+                                            .owner(groupId)
+                                            .ownerType(AuthorizationOwnerTypeDTO.Group)
+                                            .resource("/causal/r4")
+                                            .authorizationType(Read)
+                                            .build()
+                            );
+                            return !authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix("user4@slac.stanford.edu", Read, "/causal", Optional.empty(), Optional.of(true)).isEmpty();
+                        }
+                )
+        );
+        assertThat(authorizedByGroup).isTrue();
+    }
+
+    @Test
+    public void sessionIsStartedByTheFirstDatabaseAccess() {
+        try (CausalSessionScope.Scope ignored = causalSessionScope.open()) {
+            assertThat(causalSessionScope.isActive()).isTrue();
+            assertThat(causalSessionScope.isSessionStarted()).isFalse();
+            authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix("user5@slac.stanford.edu", Read, "/causal", Optional.empty(), Optional.empty());
+            assertThat(causalSessionScope.isSessionStarted()).isTrue();
+        }
+        assertThat(causalSessionScope.isSessionStarted()).isFalse();
+    }
+
+    @Test
+    public void saveAllIsSeenByTheChecksOfTheSameScope() {
+        Boolean authorized = assertDoesNotThrow(
+                () -> causalSessionScope.run(
+                        () -> {
+                            authorizationRepository.saveAll(
+                                    List.of(
+                                            Authorization.builder()
+                                                    .authorizationType(Authorization.Type.Read.getValue())
+                                                    .owner("user6@slac.stanford.edu")
+                                                    .ownerType(User)
+                                                    .resource("/causal/r6")
+                                                    .build()
+                                    )
+                            );
+                            return !authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix("user6@slac.stanford.edu", Read, "/causal", Optional.empty(), Optional.empty()).isEmpty();
+                        }
+                )
+        );
+        assertThat(authorized).isTrue();
+    }
+
+    @Test
+    public void propagatedCallContinueTheScopeOnAnotherThread() {
+        Boolean authorized = assertDoesNotThrow(
+                () -> causalSessionScope.run(
+                        () -> {
+                            addAuthorization("user7@slac.stanford.edu", "/causal/r7");
+                            Supplier<Boolean> check = causalSessionScope.propagate(
+                                    () -> {
+                                        assertThat(causalSessionScope.isActive()).isTrue();
+                                        return !authorizationRepository.findAllByOwnerAndGroupsAndAuthorizationTypeAndResourcePrefix(
+                                                "user7@slac.stanford.edu", User, null, Authorization.Type.Write.getValue(), "/causal"
+                                        ).isEmpty();
+                                    }
+                            );
+                            return CompletableFuture.supplyAsync(check).join();
+                        }
+                )
+        );
+        assertThat(authorized).isTrue();
+    }
+
+    private String addAuthorization(String owner, String resource) {
+        return authService.addNewAuthorization(
+                NewAuthorizationDTO
+                        .builder()
+                        .owner(owner)
+                        .ownerType(AuthorizationOwnerTypeDTO.User)
+                        .resource(resource)
+                        .authorizationType(Write)
+                        .build()
+        );
+    }
+}
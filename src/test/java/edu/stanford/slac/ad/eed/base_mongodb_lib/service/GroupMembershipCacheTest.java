@@ -0,0 +1,91 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.service;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.cache.GroupMembershipCache;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationOwnerTypeDTO;
+import edu.stanford.slac.ad.eed.baselib.service.AuthService;
+import edu.stanford.slac.ad.eed.baselib.service.PeopleGroupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {"edu.stanford.slac.ad.eed.mongodb.group-membership-cache.enabled=true"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class GroupMembershipCacheTest {
+    @SpyBean
+    @Autowired
+    private PeopleGroupService peopleGroupService;
+    @Autowired
+    private GroupMembershipCache groupMembershipCache;
+    @Autowired
+    private AuthService authService;
+
+    @BeforeEach
+    public void preTest() {
+        groupMembershipCache.invalidateAll();
+        Mockito.reset(peopleGroupService);
+    }
+
+    @Test
+    public void groupsAreSearchedOnlyOnceForUser() {
+        for (int idx = 0; idx < 5; idx++) {
+            assertDoesNotThrow(
+                    () -> authService.getAllAuthenticationForOwner(
+                            "user1@slac.stanford.edu",
+                            AuthorizationOwnerTypeDTO.User,
+                            Optional.empty(),
+                            Optional.of(true)
+                    )
+            );
+        }
+        verify(peopleGroupService, times(1)).findGroupByUserId("user1@slac.stanford.edu");
+    }
+
+    @Test
+    public void concurrentRequestsShareTheSameSearch() throws InterruptedException {
+        int concurrency = 20;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<List<String>>> tasks = new ArrayList<>();
+        for (int idx = 0; idx < concurrency; idx++) {
+            tasks.add(() -> {
+                start.await();
+                return groupMembershipCache.get("user2@slac.stanford.edu");
+            });
+        }
+        try (ExecutorService executorService = Executors.newFixedThreadPool(concurrency)) {
+            List<Future<List<String>>> results = new ArrayList<>();
+            tasks.forEach(task -> results.add(executorService.submit(task)));
+            start.countDown();
+            for (Future<List<String>> result : results) {
+                assertThat(assertDoesNotThrow(() -> result.get())).isNotNull();
+            }
+        }
+        verify(peopleGroupService, times(1)).findGroupByUserId("user2@slac.stanford.edu");
+    }
+}
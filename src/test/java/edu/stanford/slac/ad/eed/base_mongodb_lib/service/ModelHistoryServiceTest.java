@@ -8,14 +8,19 @@ import edu.stanford.slac.ad.eed.baselib.model.ModelChangesHistory;
 import edu.stanford.slac.ad.eed.baselib.service.ModelHistoryService;
 import org.assertj.core.api.Condition;
 import org.bson.Document;
+import org.javers.core.Javers;
+import org.javers.core.diff.changetype.PropertyChange;
+import org.javers.repository.jql.QueryBuilder;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.data.ldap.repository.config.EnableLdapRepositories;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Query;
@@ -23,14 +28,22 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.util.CollectionUtils;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.*;
 
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @AutoConfigureMockMvc
 @SpringBootTest(properties = {})
@@ -46,6 +59,8 @@ public class ModelHistoryServiceTest {
     @Autowired
     private ModelHistoryService modelHistoryService;
     @Autowired
+    private ModelHistoryServiceImpl modelHistoryServiceImpl;
+    @Autowired
     private TestChangeModelPrimitiveRepository testChangeModel1Repository;
     @Autowired
     private TestChangeModelArrayRepository testChangeModelArrayRepository;
@@ -55,6 +70,9 @@ public class ModelHistoryServiceTest {
     private TestChangeModelMixedRepository testChangeModelMixedRepository;
     @Autowired
     private MongoTemplate mongoTemplate;
+    @SpyBean
+    @Autowired
+    private Javers javers;
 
     @BeforeEach
     public void preTest() {
@@ -266,6 +284,192 @@ public class ModelHistoryServiceTest {
                 .areAtLeastOne(new ListCondition(List.of("string1", "string2"), true));
     }
 
+    @Test
+    public void testEachRevisionHasOnlyItsChanges() {
+        var savedTestModel = assertDoesNotThrow(() -> testChangeModel1Repository.save(
+                        TestChangeModelPrimitive
+                                .builder()
+                                .stringField1("revision-0")
+                                .build()
+                )
+        );
+        var lastTestModel = savedTestModel;
+        for (int idx = 1; idx < 50; idx++) {
+            var toUpdate = lastTestModel.toBuilder()
+                    .stringField1("revision-%d".formatted(idx))
+                    .build();
+            lastTestModel = assertDoesNotThrow(() -> testChangeModel1Repository.save(toUpdate));
+        }
+        var listOfChanges = assertDoesNotThrow(() -> modelHistoryService.findChangesByModelId(TestChangeModelPrimitive.class, savedTestModel.getId()));
+        assertThat(listOfChanges).hasSize(50);
+        // the history start from the last revision
+        for (int idx = 0; idx < 50; idx++) {
+            assertThat(listOfChanges.get(idx).changes())
+                    .filteredOn(change -> "stringField1".equals(change.fieldName()))
+                    .extracting(ModelChangeDTO::newValue)
+                    .containsExactly("revision-%d".formatted(49 - idx));
+        }
+    }
+
+    @Test
+    public void testChangesOfACommitKeepTheJaversReverseOrder() {
+        var savedTestModel = assertDoesNotThrow(() -> testChangeModel1Repository.save(
+                        TestChangeModelPrimitive
+                                .builder()
+                                .stringField1("revision-0")
+                                .boolField1(false)
+                                .intField1(0)
+                                .build()
+                )
+        );
+        var toUpdate = savedTestModel.toBuilder()
+                .stringField1("revision-1")
+                .boolField1(true)
+                .intField1(1)
+                .longField1(1L)
+                .build();
+        assertDoesNotThrow(() -> testChangeModel1Repository.save(toUpdate));
+
+        var listOfChanges = assertDoesNotThrow(() -> modelHistoryService.findChangesByModelId(TestChangeModelPrimitive.class, savedTestModel.getId()));
+        assertThat(listOfChanges).hasSize(2);
+        // the last commit changed four properties
+        var lastCommitId = javers.findSnapshots(
+                QueryBuilder.byInstanceId(savedTestModel.getId(), TestChangeModelPrimitive.class).limit(1).build()
+        ).get(0).getCommitId();
+        // the changes built by javers for the same commit, reversed
+        List<String> expectedFieldNames = new ArrayList<>(
+                javers.findChanges(QueryBuilder.byInstanceId(savedTestModel.getId(), TestChangeModelPrimitive.class).build())
+                        .stream()
+                        .filter(change -> change instanceof PropertyChange)
+                        .filter(change -> change.getCommitMetadata().map(metadata -> metadata.getId().equals(lastCommitId)).orElse(false))
+                        .map(change -> ((PropertyChange) change).getPropertyName())
+                        .toList()
+        );
+        Collections.reverse(expectedFieldNames);
+        assertThat(expectedFieldNames).hasSize(4);
+        assertThat(listOfChanges.get(0).changes())
+                .extracting(ModelChangeDTO::fieldName)
+                .containsExactlyElementsOf(expectedFieldNames);
+    }
+
+    @Test
+    public void testPagedAndTimeBoundedHistory() {
+        var savedTestModel = assertDoesNotThrow(() -> testChangeModel1Repository.save(
+                        TestChangeModelPrimitive
+                                .builder()
+                                .stringField1("revision-0")
+                                .build()
+                )
+        );
+        var lastTestModel = savedTestModel;
+        for (int idx = 1; idx < 30; idx++) {
+            var toUpdate = lastTestModel.toBuilder()
+                    .stringField1("revision-%d".formatted(idx))
+                    .build();
+            lastTestModel = assertDoesNotThrow(() -> testChangeModel1Repository.save(toUpdate));
+        }
+
+        var firstPage = assertDoesNotThrow(() -> modelHistoryServiceImpl.findChangesByModelId(TestChangeModelPrimitive.class, savedTestModel.getId(), 0, 20, null, null));
+        assertThat(firstPage).hasSize(20);
+        assertThat(firstPage.get(0).changes())
+                .extracting(ModelChangeDTO::newValue)
+                .contains("revision-29");
+        // the oldest commit of the page still has its changes
+        assertThat(firstPage.get(19).changes())
+                .extracting(ModelChangeDTO::newValue)
+                .contains("revision-10");
+        var secondPage = assertDoesNotThrow(() -> modelHistoryServiceImpl.findChangesByModelId(TestChangeModelPrimitive.class, savedTestModel.getId(), 20, 20, null, null));
+        assertThat(secondPage).hasSize(10);
+        assertThat(secondPage.get(9).changes())
+                .extracting(ModelChangeDTO::newValue)
+                .contains("revision-0");
+
+        var lastStates = assertDoesNotThrow(() -> modelHistoryServiceImpl.findModelChangesByModelId(TestChangeModelPrimitive.class, savedTestModel.getId(), 0, 5, null, null));
+        assertThat(lastStates).hasSize(5);
+        assertThat(lastStates.get(0).getStringField1()).isEqualTo("revision-29");
+
+        var noChanges = assertDoesNotThrow(() -> modelHistoryServiceImpl.findChangesByModelId(TestChangeModelPrimitive.class, savedTestModel.getId(), 0, 20, LocalDateTime.now().plusDays(1), null));
+        assertThat(noChanges).isEmpty();
+        var allChanges = assertDoesNotThrow(() -> modelHistoryServiceImpl.findChangesByModelId(TestChangeModelPrimitive.class, savedTestModel.getId(), 0, 50, LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1)));
+        assertThat(allChanges).hasSize(30);
+    }
+
+    @Test
+    public void testHistoryReadsTheSnapshotsOnce() {
+        var savedTestModel = assertDoesNotThrow(() -> testChangeModel1Repository.save(
+                        TestChangeModelPrimitive
+                                .builder()
+                                .stringField1("revision-0")
+                                .build()
+                )
+        );
+        var updatedTestModel = assertDoesNotThrow(() -> testChangeModel1Repository.save(
+                        savedTestModel.toBuilder()
+                                .stringField1("revision-1")
+                                .build()
+                )
+        );
+        assertDoesNotThrow(() -> testChangeModel1Repository.save(
+                        updatedTestModel.toBuilder()
+                                .stringField1("revision-2")
+                                .build()
+                )
+        );
+
+        Mockito.clearInvocations(javers);
+        var listOfChanges = assertDoesNotThrow(() -> modelHistoryService.findChangesByModelId(TestChangeModelPrimitive.class, savedTestModel.getId()));
+        assertThat(listOfChanges).hasSize(3);
+        assertThat(listOfChanges.get(0).changes())
+                .extracting(ModelChangeDTO::oldValue, ModelChangeDTO::newValue)
+                .containsExactly(tuple("revision-1", "revision-2"));
+        assertThat(listOfChanges.get(2).changes())
+                .extracting(ModelChangeDTO::fieldName)
+                .containsExactly("stringField1");
+        verify(javers, times(1)).findSnapshots(any());
+        verify(javers, never()).findChanges(any());
+
+        // the previous version of the oldest commit of a page is loaded apart
+        Mockito.clearInvocations(javers);
+        var lastChange = assertDoesNotThrow(() -> modelHistoryServiceImpl.findChangesByModelId(TestChangeModelPrimitive.class, savedTestModel.getId(), 0, 1, null, null));
+        assertThat(lastChange).hasSize(1);
+        assertThat(lastChange.get(0).changes())
+                .extracting(ModelChangeDTO::oldValue)
+                .containsExactly("revision-1");
+        verify(javers, times(2)).findSnapshots(any());
+    }
+
+    @Test
+    public void testStreamTheLastVersions() {
+        var savedTestModel = assertDoesNotThrow(() -> testChangeModel1Repository.save(
+                        TestChangeModelPrimitive
+                                .builder()
+                                .stringField1("revision-0")
+                                .build()
+                )
+        );
+        var lastTestModel = savedTestModel;
+        for (int idx = 1; idx < 12; idx++) {
+            var toUpdate = lastTestModel.toBuilder()
+                    .stringField1("revision-%d".formatted(idx))
+                    .build();
+            lastTestModel = assertDoesNotThrow(() -> testChangeModel1Repository.save(toUpdate));
+        }
+
+        List<String> lastVersions = assertDoesNotThrow(() -> {
+            try (var versions = modelHistoryServiceImpl.streamModelChangesByModelId(TestChangeModelPrimitive.class, savedTestModel.getId(), 5)) {
+                return versions.limit(3).map(TestChangeModelPrimitive::getStringField1).toList();
+            }
+        });
+        assertThat(lastVersions).containsExactly("revision-11", "revision-10", "revision-9");
+
+        // the stream load the next batches when needed
+        List<String> allVersions = assertDoesNotThrow(() -> {
+            try (var versions = modelHistoryServiceImpl.streamModelChangesByModelId(TestChangeModelPrimitive.class, savedTestModel.getId(), 5)) {
+                return versions.map(TestChangeModelPrimitive::getStringField1).toList();
+            }
+        });
+        assertThat(allVersions).hasSize(12).startsWith("revision-11").endsWith("revision-0");
+    }
 
     @Test
     public void testChangesMixedClassComplexList() {
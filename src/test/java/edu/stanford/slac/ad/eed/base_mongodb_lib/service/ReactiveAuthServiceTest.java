@@ -0,0 +1,199 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.service;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.repository.AuthorizationRepository;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationOwnerTypeDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v2.dto.NewLocalGroupDTO;
+import edu.stanford.slac.ad.eed.baselib.config.AppProperties;
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.ad.eed.baselib.model.LocalGroup;
+import edu.stanford.slac.ad.eed.baselib.service.AuthService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Optional;
+
+import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO.Admin;
+import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO.Read;
+import static edu.stanford.slac.ad.eed.baselib.model.AuthorizationOwnerType.Group;
+import static edu.stanford.slac.ad.eed.baselib.model.AuthorizationOwnerType.User;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {"edu.stanford.slac.ad.eed.mongodb.reactive.enabled=true"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class ReactiveAuthServiceTest {
+    @Autowired
+    private ReactiveAuthServiceImpl reactiveAuthService;
+    @Autowired
+    private AuthorizationRepository authorizationRepository;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private AppProperties appProperties;
+    private String groupId = null;
+
+    @BeforeEach
+    public void preTest() {
+        mongoTemplate.remove(new Query(), Authorization.class);
+        mongoTemplate.remove(new Query(), LocalGroup.class);
+        groupId = authService.createLocalGroup(
+                NewLocalGroupDTO
+                        .builder()
+                        .name("reactive-group-1")
+                        .description("reactive-group-1")
+                        .members(List.of("user1@slac.stanford.edu"))
+                        .build()
+        );
+        assertDoesNotThrow(
+                () -> authorizationRepository.save(
+                        Authorization.builder()
+                                .authorizationType(Authorization.Type.Read.getValue())
+                                .owner("user1@slac.stanford.edu")
+                                .ownerType(User)
+                                .resource("/r1")
+                                .build()
+                )
+        );
+        assertDoesNotThrow(
+                () -> authorizationRepository.save(
+                        Authorization.builder()
+                                .authorizationType(Authorization.Type.Write.getValue())
+                                .owner(groupId)
+                                .ownerType(Group)
+                                .resource("/r2")
+                                .build()
+                )
+        );
+    }
+
+    @Test
+    public void reactiveResolutionMatchTheBlockingOne() {
+        List<AuthorizationDTO> blockingResult = assertDoesNotThrow(
+                () -> authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(
+                        "user1@slac.stanford.edu",
+                        Read,
+                        "/r",
+                        Optional.empty(),
+                        Optional.of(true)
+                )
+        );
+        List<AuthorizationDTO> reactiveResult = assertDoesNotThrow(
+                () -> reactiveAuthService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(
+                        "user1@slac.stanford.edu",
+                        Read,
+                        "/r",
+                        Optional.empty(),
+                        Optional.of(true)
+                ).collectList().block()
+        );
+        assertThat(reactiveResult)
+                .extracting(AuthorizationDTO::resource)
+                .containsExactlyInAnyOrder("/r1", "/r2")
+                .containsExactlyInAnyOrderElementsOf(blockingResult.stream().map(AuthorizationDTO::resource).toList());
+
+        List<AuthorizationDTO> ownerResult = assertDoesNotThrow(
+                () -> reactiveAuthService.getAllAuthenticationForOwner(
+                        "user1@slac.stanford.edu",
+                        AuthorizationOwnerTypeDTO.User,
+                        Optional.empty(),
+                        Optional.of(false)
+                ).collectList().block()
+        );
+        assertThat(ownerResult)
+                .extracting(AuthorizationDTO::resource)
+                .containsExactly("/r1");
+    }
+
+    @Test
+    public void reactiveCheckUseGroupsAndRoot() {
+        assertThat(
+                reactiveAuthService.hasAuthorizationForOwnerAndAuthTypeAndResourcePrefix(
+                        "user1@slac.stanford.edu",
+                        Read,
+                        "/r2",
+                        Optional.of(true)
+                ).block()
+        ).isTrue();
+        assertThat(
+                reactiveAuthService.hasAuthorizationForOwnerAndAuthTypeAndResourcePrefix(
+                        "user1@slac.stanford.edu",
+                        Read,
+                        "/r2",
+                        Optional.of(false)
+                ).block()
+        ).isFalse();
+        assertThat(
+                reactiveAuthService.hasAuthorizationForOwnerAndAuthTypeAndResourcePrefix(
+                        "user2@slac.stanford.edu",
+                        Admin,
+                        "/r1",
+                        Optional.of(true)
+                ).block()
+        ).isFalse();
+
+        // root grant all the resources
+        assertDoesNotThrow(
+                () -> authorizationRepository.save(
+                        Authorization.builder()
+                                .authorizationType(Authorization.Type.Admin.getValue())
+                                .owner("user2@slac.stanford.edu")
+                                .ownerType(User)
+                                .resource("*")
+                                .build()
+                )
+        );
+        assertThat(
+                reactiveAuthService.hasAuthorizationForOwnerAndAuthTypeAndResourcePrefix(
+                        "user2@slac.stanford.edu",
+                        Admin,
+                        "/r1",
+                        Optional.of(true)
+                ).block()
+        ).isTrue();
+        assertThat(reactiveAuthService.findAllRoot().collectList().block())
+                .extracting(AuthorizationDTO::owner)
+                .contains("user2@slac.stanford.edu");
+    }
+
+    @Test
+    public void reactiveCanManageGroupMatchTheBlockingOne() {
+        String groupResource = "%s/group".formatted(appProperties.getAppName());
+        // an admin authorization of one of the user groups doesn't grant the group management
+        assertDoesNotThrow(
+                () -> authorizationRepository.save(
+                        Authorization.builder()
+                                .authorizationType(Authorization.Type.Admin.getValue())
+                                .owner(groupId)
+                                .ownerType(Group)
+                                .resource(groupResource)
+                                .build()
+                )
+        );
+        assertThat(reactiveAuthService.canManageGroup("user1@slac.stanford.edu").block())
+                .isEqualTo(authService.canManageGroup("user1@slac.stanford.edu"))
+                .isFalse();
+
+        assertDoesNotThrow(() -> authService.authorizeUserIdToManageGroup("user1@slac.stanford.edu"));
+        assertThat(reactiveAuthService.canManageGroup("user1@slac.stanford.edu").block())
+                .isEqualTo(authService.canManageGroup("user1@slac.stanford.edu"))
+                .isTrue();
+    }
+}
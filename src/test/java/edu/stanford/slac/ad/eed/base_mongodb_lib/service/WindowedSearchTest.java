@@ -0,0 +1,237 @@
+package edu.stanford.slac.ad.eed.base_mongodb_lib.service;
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.config.MongoDBProperties;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.repository.LocalGroupRepository;
+import edu.stanford.slac.ad.eed.base_mongodb_lib.utility.InitAuthorizationIndex;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthenticationTokenDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthenticationTokenQueryParameterDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.NewAuthenticationTokenDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v2.dto.NewLocalGroupDTO;
+import edu.stanford.slac.ad.eed.baselib.model.AuthenticationToken;
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.ad.eed.baselib.model.LocalGroup;
+import edu.stanford.slac.ad.eed.baselib.model.LocalGroupQueryParameter;
+import edu.stanford.slac.ad.eed.baselib.service.AuthService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {"edu.stanford.slac.ad.eed.mongodb.windowed-search.enabled=true"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class WindowedSearchTest {
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private MongoDBProperties mongoDBProperties;
+    @Autowired
+    private LocalGroupRepository localGroupRepository;
+
+    @BeforeEach
+    public void preTest() {
+        mongoTemplate.remove(new Query(), Authorization.class);
+        mongoTemplate.remove(new Query(), AuthenticationToken.class);
+        mongoTemplate.remove(new Query(), LocalGroup.class);
+        InitAuthorizationIndex initAuthorizationIndex = new InitAuthorizationIndex(mongoTemplate);
+        initAuthorizationIndex.updateIndex();
+    }
+
+    @Test
+    public void windowReturnContextAndLimitAroundTheAnchor() throws InterruptedException {
+        createTokens(20);
+        List<AuthenticationTokenDTO> allTokens = assertDoesNotThrow(
+                () -> authService.findAllAuthenticationToken(
+                        AuthenticationTokenQueryParameterDTO
+                                .builder()
+                                .limit(20)
+                                .build()
+                )
+        );
+        assertThat(allTokens).hasSize(20);
+
+        // three elements up to the anchor and four after it
+        List<AuthenticationTokenDTO> window = assertDoesNotThrow(
+                () -> authService.findAllAuthenticationToken(
+                        AuthenticationTokenQueryParameterDTO
+                                .builder()
+                                .anchor(allTokens.get(10).id())
+                                .context(3)
+                                .limit(4)
+                                .build()
+                )
+        );
+        assertThat(window)
+                .extracting(AuthenticationTokenDTO::name)
+                .containsExactly("token-08", "token-09", "token-10", "token-11", "token-12", "token-13", "token-14");
+    }
+
+    @Test
+    public void twoQueriesReturnBothSlicesOfTheWindow() throws InterruptedException {
+        createTokens(20);
+        List<AuthenticationTokenDTO> allTokens = assertDoesNotThrow(
+                () -> authService.findAllAuthenticationToken(
+                        AuthenticationTokenQueryParameterDTO
+                                .builder()
+                                .limit(20)
+                                .build()
+                )
+        );
+        assertThat(allTokens).hasSize(20);
+
+        // the slices after the anchor used to share the criteria of the context and came back empty
+        List<AuthenticationTokenDTO> window = withoutWindowedSearch(
+                () -> assertDoesNotThrow(
+                        () -> authService.findAllAuthenticationToken(
+                                AuthenticationTokenQueryParameterDTO
+                                        .builder()
+                                        .anchor(allTokens.get(10).id())
+                                        .context(3)
+                                        .limit(4)
+                                        .build()
+                        )
+                )
+        );
+        assertThat(window)
+                .extracting(AuthenticationTokenDTO::name)
+                .containsExactly("token-08", "token-09", "token-10", "token-11", "token-12", "token-13", "token-14");
+    }
+
+    @Test
+    public void localGroupWindowReturnContextAndLimitAroundTheAnchor() throws InterruptedException {
+        for (int i = 0; i < 20; i++) {
+            int finalI = i;
+            assertDoesNotThrow(
+                    () -> authService.createLocalGroup(
+                            NewLocalGroupDTO
+                                    .builder()
+                                    .name("group-%02d".formatted(finalI))
+                                    .description("group-%02d".formatted(finalI))
+                                    .members(List.of())
+                                    .build()
+                    )
+            );
+            // keep the creation dates distinct
+            Thread.sleep(2);
+        }
+        List<LocalGroup> allGroups = assertDoesNotThrow(
+                () -> localGroupRepository.findAll(
+                        LocalGroupQueryParameter
+                                .builder()
+                                .limit(20)
+                                .build()
+                )
+        );
+        assertThat(allGroups).hasSize(20);
+
+        LocalGroupQueryParameter windowQuery = LocalGroupQueryParameter
+                .builder()
+                .anchorID(allGroups.get(10).getId())
+                .contextSize(3)
+                .limit(4)
+                .build();
+        List<LocalGroup> window = assertDoesNotThrow(() -> localGroupRepository.findAll(windowQuery));
+        assertThat(window)
+                .extracting(LocalGroup::getName)
+                .containsExactly("group-08", "group-09", "group-10", "group-11", "group-12", "group-13", "group-14");
+        // the two queries return the same window
+        List<LocalGroup> windowByTwoQueries = withoutWindowedSearch(
+                () -> assertDoesNotThrow(() -> localGroupRepository.findAll(windowQuery))
+        );
+        assertThat(windowByTwoQueries)
+                .extracting(LocalGroup::getName)
+                .containsExactly("group-08", "group-09", "group-10", "group-11", "group-12", "group-13", "group-14");
+    }
+
+    @Test
+    public void windowApplyTheTextSearch() {
+        for (int i = 0; i < 10; i++) {
+            int finalI = i;
+            assertDoesNotThrow(
+                    () -> authService.addNewAuthenticationToken(
+                            NewAuthenticationTokenDTO
+                                    .builder()
+                                    .name("token-%02d".formatted(finalI))
+                                    .expiration(LocalDate.of(3000, 1, 1))
+                                    .build(),
+                            false
+                    )
+            );
+        }
+        List<AuthenticationTokenDTO> found = assertDoesNotThrow(
+                () -> authService.findAllAuthenticationToken(
+                        AuthenticationTokenQueryParameterDTO
+                                .builder()
+                                .searchFilter("05")
+                                .limit(5)
+                                .build()
+                )
+        );
+        assertThat(found).hasSize(1);
+
+        List<AuthenticationTokenDTO> window = assertDoesNotThrow(
+                () -> authService.findAllAuthenticationToken(
+                        AuthenticationTokenQueryParameterDTO
+                                .builder()
+                                .anchor(found.get(0).id())
+                                .searchFilter("05")
+                                .context(5)
+                                .limit(5)
+                                .build()
+                )
+        );
+        assertThat(window)
+                .extracting(AuthenticationTokenDTO::name)
+                .containsExactly("token-05");
+    }
+
+    private void createTokens(int count) throws InterruptedException {
+        for (int i = 0; i < count; i++) {
+            int finalI = i;
+            assertDoesNotThrow(
+                    () -> authService.addNewAuthenticationToken(
+                            NewAuthenticationTokenDTO
+                                    .builder()
+                                    .name("token-%02d".formatted(finalI))
+                                    .expiration(LocalDate.of(3000, 1, 1))
+                                    .build(),
+                            false
+                    )
+            );
+            // keep the creation dates distinct
+            Thread.sleep(2);
+        }
+    }
+
+    /**
+     * Run the search with the context and the limit slices fetched by two queries
+     */
+    private <T> T withoutWindowedSearch(Supplier<T> search) {
+        mongoDBProperties.getWindowedSearch().setEnabled(false);
+        try {
+            return search.get();
+        } finally {
+            mongoDBProperties.getWindowedSearch().setEnabled(true);
+        }
+    }
+}